@@ -0,0 +1,60 @@
+#!/usr/bin/env bash
+# Compares startup time and resident memory right after startup of
+#   jvm     the executable jar
+#   jvm-aot the same jar running the initializers generated by Spring AOT
+#   native  the GraalVM native executable
+# Build first with: ./mvnw -Pnative -DskipTests package native:compile
+# (native:compile needs GraalVM, without it only the two JVM variants are measured).
+# Linux only, RSS is read from /proc. RUNS sets the number of starts per variant, default 5.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS=${RUNS:-5}
+JAR=target/spring-6-reactive-0.0.1-SNAPSHOT.jar
+NATIVE=target/spring-6-reactive
+APP_ARGS=(--server.port=0 --logging.level.root=WARN
+          --logging.level.guru.springframework.spring6reactive.Spring6ReactiveApplication=INFO)
+
+measure() {
+    local name=$1
+    shift
+    local total_startup=0 total_rss=0
+
+    for run in $(seq "$RUNS"); do
+        local log
+        log=$(mktemp)
+        "$@" "${APP_ARGS[@]}" > "$log" 2>&1 &
+        local pid=$!
+
+        for _ in $(seq 600); do
+            grep -q "Started " "$log" && break
+            kill -0 "$pid" 2> /dev/null || { cat "$log"; exit 1; }
+            sleep 0.1
+        done
+
+        local startup rss
+        startup=$(sed -n 's/.*Started .* in \([0-9.]*\) seconds.*/\1/p' "$log")
+        rss=$(awk '/VmRSS/ { print $2 }' "/proc/$pid/status")
+        kill "$pid"
+        wait "$pid" 2> /dev/null || true
+        rm -f "$log"
+
+        total_startup=$(awk -v a="$total_startup" -v b="$startup" 'BEGIN { print a + b }')
+        total_rss=$((total_rss + rss))
+    done
+
+    printf "%-8s %12.3f %12d\n" "$name" "$(awk -v t="$total_startup" -v n="$RUNS" 'BEGIN { print t / n }')" \
+        $((total_rss / RUNS / 1024))
+}
+
+[ -f "$JAR" ] || { echo "$JAR not found, build it first" >&2; exit 1; }
+
+printf "%-8s %12s %12s\n" "variant" "startup (s)" "RSS (MB)"
+measure jvm java -jar "$JAR"
+if unzip -p "$JAR" META-INF/MANIFEST.MF | grep -q "Spring-Boot-Native-Processed"; then
+    measure jvm-aot java -Dspring.aot.enabled=true -jar "$JAR"
+fi
+if [ -x "$NATIVE" ]; then
+    measure native "$NATIVE"
+fi
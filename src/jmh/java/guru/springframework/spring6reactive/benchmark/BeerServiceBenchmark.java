@@ -0,0 +1,118 @@
+package guru.springframework.spring6reactive.benchmark;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import guru.springframework.spring6reactive.Spring6ReactiveApplication;
+import guru.springframework.spring6reactive.model.BatchOperationType;
+import guru.springframework.spring6reactive.model.BeerBatchOperationDTO;
+import guru.springframework.spring6reactive.model.BeerDTO;
+import guru.springframework.spring6reactive.model.BeerFilterDTO;
+import guru.springframework.spring6reactive.model.BeerStyleStatsDTO;
+import guru.springframework.spring6reactive.services.BeerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.ResolvableType;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end Reactor pipelines of {@link BeerService}, from the R2DBC pool through the mappers, against
+ * the in-memory H2 database the application uses. The application is started on a random port and the
+ * table is seeded with {@code rows} extra beers, all of them in the point-read cache, before measuring.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BeerServiceBenchmark {
+    private static final int PAGE_SIZE = 25;
+
+    @Param({"1000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private BeerService beerService;
+    private AsyncCache<Integer, BeerDTO> beerCache;
+    private BeerFilterDTO styleFilter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.context = new SpringApplicationBuilder(Spring6ReactiveApplication.class)
+                .run("--server.port=0",
+                        "--spring.r2dbc.url=r2dbc:h2:mem:///benchmark?options=DB_CLOSE_DELAY=-1",
+                        "--logging.level.root=WARN");
+        this.beerService = this.context.getBean(BeerService.class);
+        this.beerCache = this.context.<AsyncCache<Integer, BeerDTO>>getBeanProvider(
+                ResolvableType.forClassWithGenerics(AsyncCache.class, Integer.class, BeerDTO.class)).getObject();
+        this.styleFilter = BeerFilterDTO.builder().beerStyle("IPA").build();
+
+        List<BeerBatchOperationDTO> inserts = BenchmarkData.beers(this.rows).stream()
+                .peek(beer -> beer.setId(null))
+                .map(beer -> BeerBatchOperationDTO.builder()
+                        .operation(BatchOperationType.CREATE)
+                        .beer(beer)
+                        .build())
+                .toList();
+        this.beerService.executeBatch(inserts).blockLast();
+        Flux.range(1, this.rows).concatMap(this.beerService::getBeerById).blockLast();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public BeerDTO getBeerByIdCached() {
+        return this.beerService.getBeerById(randomId()).block();
+    }
+
+    @Benchmark
+    public BeerDTO getBeerByIdUncached() {
+        int id = randomId();
+        this.beerCache.synchronous().invalidate(id);
+        return this.beerService.getBeerById(id).block();
+    }
+
+    @Benchmark
+    public List<BeerDTO> listBeersFirstPage() {
+        return this.beerService.listBeers(new BeerFilterDTO(), null, PAGE_SIZE + 1).collectList().block();
+    }
+
+    @Benchmark
+    public List<BeerDTO> listBeersDeepPage() {
+        return this.beerService.listBeers(new BeerFilterDTO(), this.rows - PAGE_SIZE, PAGE_SIZE + 1)
+                .collectList().block();
+    }
+
+    @Benchmark
+    public List<BeerDTO> listBeersByStyle() {
+        return this.beerService.listBeers(this.styleFilter, null, PAGE_SIZE + 1).collectList().block();
+    }
+
+    @Benchmark
+    public List<BeerStyleStatsDTO> getBeerStyleStats() {
+        return this.beerService.getBeerStyleStats(null).collectList().block();
+    }
+
+    private int randomId() {
+        return ThreadLocalRandom.current().nextInt(1, this.rows + 1);
+    }
+}
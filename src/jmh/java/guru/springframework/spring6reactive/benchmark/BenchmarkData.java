@@ -0,0 +1,46 @@
+package guru.springframework.spring6reactive.benchmark;
+
+import guru.springframework.spring6reactive.model.BeerDTO;
+import guru.springframework.spring6reactive.model.CustomerDTO;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+final class BenchmarkData {
+    private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2023, 11, 1, 12, 0);
+
+    private BenchmarkData() {
+    }
+
+    static BeerDTO beer(int id) {
+        return BeerDTO.builder()
+                .id(id)
+                .beerName("Beer " + id)
+                .beerStyle(id % 2 == 0 ? "IPA" : "Pale Ale")
+                .upc(String.valueOf(100000 + id))
+                .quantityOnHand(id * 7 % 500)
+                .price(new BigDecimal("12.99"))
+                .createdDate(TIMESTAMP)
+                .lastModifiedDate(TIMESTAMP)
+                .build();
+    }
+
+    static CustomerDTO customer(int id) {
+        return CustomerDTO.builder()
+                .id(id)
+                .customerName("Customer " + id)
+                .createdDate(TIMESTAMP)
+                .lastModifiedDate(TIMESTAMP)
+                .build();
+    }
+
+    static List<BeerDTO> beers(int count) {
+        return IntStream.rangeClosed(1, count).mapToObj(BenchmarkData::beer).toList();
+    }
+
+    static List<CustomerDTO> customers(int count) {
+        return IntStream.rangeClosed(1, count).mapToObj(BenchmarkData::customer).toList();
+    }
+}
@@ -0,0 +1,164 @@
+package guru.springframework.spring6reactive.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import guru.springframework.spring6reactive.config.CodecConfig;
+import guru.springframework.spring6reactive.model.BeerDTO;
+import guru.springframework.spring6reactive.model.CustomerDTO;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Decoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.codec.json.AbstractJackson2Encoder;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of DTO lists with the same Jackson codecs WebFlux uses for request and
+ * response bodies, sized like a full page of the list endpoints, for every format the API negotiates.
+ * The encoded size of each list is reported as the {@code beerBytes} and {@code customerBytes} secondary
+ * results of the encode benchmarks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodecBenchmark {
+    private static final ResolvableType BEER_LIST = ResolvableType.forClassWithGenerics(List.class, BeerDTO.class);
+    private static final ResolvableType CUSTOMER_LIST =
+            ResolvableType.forClassWithGenerics(List.class, CustomerDTO.class);
+
+    @Param({"25", "100"})
+    public int size;
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    private final DefaultDataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+    private AbstractJackson2Encoder encoder;
+    private Decoder<Object> decoder;
+    private MimeType mimeType;
+
+    private List<BeerDTO> beers;
+    private List<CustomerDTO> customers;
+    private byte[] beersEncoded;
+    private byte[] customersEncoded;
+
+    /**
+     * Encoded sizes, reported once per iteration next to the throughput.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadSize {
+        public long beerBytes;
+        public long customerBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.beerBytes = 0;
+            this.customerBytes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        switch (this.format) {
+            case "json" -> {
+                ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+                this.mimeType = MediaType.APPLICATION_JSON;
+                this.encoder = new Jackson2JsonEncoder(objectMapper);
+                this.decoder = new Jackson2JsonDecoder(objectMapper);
+            }
+            case "cbor" -> {
+                ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+                this.mimeType = MediaType.APPLICATION_CBOR;
+                this.encoder = new Jackson2CborEncoder(objectMapper, this.mimeType);
+                this.decoder = new Jackson2CborDecoder(objectMapper, this.mimeType);
+            }
+            case "smile" -> {
+                ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build();
+                this.mimeType = CodecConfig.APPLICATION_SMILE;
+                this.encoder = new Jackson2SmileEncoder(objectMapper, this.mimeType);
+                this.decoder = new Jackson2SmileDecoder(objectMapper, this.mimeType);
+            }
+            default -> throw new IllegalArgumentException("Unknown format " + this.format);
+        }
+
+        this.beers = BenchmarkData.beers(this.size);
+        this.customers = BenchmarkData.customers(this.size);
+        this.beersEncoded = toBytes(encode(this.beers, BEER_LIST));
+        this.customersEncoded = toBytes(encode(this.customers, CUSTOMER_LIST));
+    }
+
+    @Benchmark
+    public int encodeBeers(PayloadSize payloadSize) {
+        int length = release(encode(this.beers, BEER_LIST));
+        payloadSize.beerBytes = length;
+        return length;
+    }
+
+    @Benchmark
+    public int encodeCustomers(PayloadSize payloadSize) {
+        int length = release(encode(this.customers, CUSTOMER_LIST));
+        payloadSize.customerBytes = length;
+        return length;
+    }
+
+    @Benchmark
+    public Object decodeBeers() {
+        return decode(this.beersEncoded, BEER_LIST);
+    }
+
+    @Benchmark
+    public Object decodeCustomers() {
+        return decode(this.customersEncoded, CUSTOMER_LIST);
+    }
+
+    private DataBuffer encode(Object value, ResolvableType type) {
+        return this.encoder.encodeValue(value, this.bufferFactory, type, this.mimeType, Map.of());
+    }
+
+    private Object decode(byte[] encoded, ResolvableType type) {
+        return this.decoder.decode(this.bufferFactory.wrap(encoded), type, this.mimeType, Map.of());
+    }
+
+    private static int release(DataBuffer buffer) {
+        int length = buffer.readableByteCount();
+        DataBufferUtils.release(buffer);
+        return length;
+    }
+
+    private static byte[] toBytes(DataBuffer buffer) {
+        byte[] bytes = new byte[buffer.readableByteCount()];
+        buffer.read(bytes);
+        return bytes;
+    }
+}
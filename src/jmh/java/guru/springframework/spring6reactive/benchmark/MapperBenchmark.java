@@ -0,0 +1,69 @@
+package guru.springframework.spring6reactive.benchmark;
+
+import guru.springframework.spring6reactive.domain.Beer;
+import guru.springframework.spring6reactive.domain.Customer;
+import guru.springframework.spring6reactive.mappers.BeerMapper;
+import guru.springframework.spring6reactive.mappers.BeerMapperImpl;
+import guru.springframework.spring6reactive.mappers.CustomerMapper;
+import guru.springframework.spring6reactive.mappers.CustomerMapperImpl;
+import guru.springframework.spring6reactive.model.BeerDTO;
+import guru.springframework.spring6reactive.model.CustomerDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity/DTO conversions done for every row that crosses the service layer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+    private final BeerMapper beerMapper = new BeerMapperImpl();
+    private final CustomerMapper customerMapper = new CustomerMapperImpl();
+
+    private Beer beer;
+    private BeerDTO beerDTO;
+    private Customer customer;
+    private CustomerDTO customerDTO;
+
+    @Setup
+    public void setUp() {
+        this.beerDTO = BenchmarkData.beer(1);
+        this.beer = this.beerMapper.beerDTOToBeer(this.beerDTO);
+        this.customerDTO = BenchmarkData.customer(1);
+        this.customer = this.customerMapper.customerDTOToCustomer(this.customerDTO);
+    }
+
+    @Benchmark
+    public BeerDTO beerToBeerDTO() {
+        return this.beerMapper.beerToBeerDTO(this.beer);
+    }
+
+    @Benchmark
+    public Beer beerDTOToBeer() {
+        return this.beerMapper.beerDTOToBeer(this.beerDTO);
+    }
+
+    @Benchmark
+    public CustomerDTO customerToCustomerDTO() {
+        return this.customerMapper.customerToCustomerDTO(this.customer);
+    }
+
+    @Benchmark
+    public Customer customerDTOToCustomer() {
+        return this.customerMapper.customerDTOToCustomer(this.customerDTO);
+    }
+}
@@ -0,0 +1,199 @@
+package guru.springframework.spring6reactive.benchmark;
+
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import guru.springframework.spring6reactive.Spring6ReactiveApplication;
+import guru.springframework.spring6reactive.controllers.BeerController;
+import guru.springframework.spring6reactive.controllers.BeerRSocketController;
+import guru.springframework.spring6reactive.model.BatchOperationType;
+import guru.springframework.spring6reactive.model.BeerBatchOperationDTO;
+import guru.springframework.spring6reactive.model.BeerDTO;
+import guru.springframework.spring6reactive.services.BeerService;
+import io.rsocket.metadata.WellKnownMimeType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.rsocket.context.RSocketServerInitializedEvent;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import org.springframework.messaging.rsocket.RSocketStrategies;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.security.rsocket.metadata.BearerTokenAuthenticationEncoder;
+import org.springframework.security.rsocket.metadata.BearerTokenMetadata;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The same point read and full listing of beers over the HTTP API and over RSocket, measured from a client
+ * in the same JVM. Throughput and the latency distribution ({@code SampleTime}) are reported for each.
+ * Both transports authenticate with a real signed JWT against a local JWK set endpoint: the HTTP client
+ * sends it with every request, the RSocket client once in the setup frame of its connection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransportBenchmark {
+    private static final String JWK_SET_PATH = "/oauth2/jwks";
+
+    @Param({"1000"})
+    public int rows;
+
+    private DisposableServer jwkServer;
+    private ConfigurableApplicationContext context;
+    private WebClient webClient;
+    private RSocketRequester requester;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        RSAKey signingKey = new RSAKeyGenerator(2048).keyID("benchmark").generate();
+        String jwkSet = new JWKSet(signingKey.toPublicJWK()).toString();
+        this.jwkServer = HttpServer.create()
+                .port(0)
+                .route(routes -> routes.get(JWK_SET_PATH, (request, response) -> response
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .sendString(Mono.just(jwkSet))))
+                .bindNow();
+        String issuerUri = "http://localhost:" + this.jwkServer.port();
+
+        AtomicInteger rsocketPort = new AtomicInteger();
+        // one client sends every request, the rate limit would cut the warmup and measurement short
+        this.context = new SpringApplicationBuilder(Spring6ReactiveApplication.class)
+                .listeners((ApplicationListener<RSocketServerInitializedEvent>) event ->
+                        rsocketPort.set(event.getServer().address().getPort()))
+                .run("--server.port=0",
+                        "--spring.rsocket.server.port=0",
+                        "--spring.r2dbc.url=r2dbc:h2:mem:///transport?options=DB_CLOSE_DELAY=-1",
+                        "--spring.security.oauth2.resourceserver.jwt.issuer-uri=" + issuerUri,
+                        "--spring.security.oauth2.resourceserver.jwt.jwk-set-uri=" + issuerUri + JWK_SET_PATH,
+                        "--app.rate-limit.enabled=false",
+                        "--logging.level.root=WARN");
+
+        List<BeerBatchOperationDTO> inserts = BenchmarkData.beers(this.rows).stream()
+                .peek(beer -> beer.setId(null))
+                .map(beer -> BeerBatchOperationDTO.builder()
+                        .operation(BatchOperationType.CREATE)
+                        .beer(beer)
+                        .build())
+                .toList();
+        this.context.getBean(BeerService.class).executeBatch(inserts).blockLast();
+
+        String token = sign(signingKey, issuerUri);
+        int httpPort = ((ReactiveWebServerApplicationContext) this.context).getWebServer().getPort();
+        this.webClient = this.context.getBean(WebClient.Builder.class)
+                .baseUrl("http://localhost:" + httpPort)
+                .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .build();
+
+        this.requester = this.context.getBean(RSocketRequester.Builder.class)
+                .rsocketStrategies(this.context.getBean(RSocketStrategies.class).mutate()
+                        .encoder(new BearerTokenAuthenticationEncoder())
+                        .build())
+                .setupMetadata(new BearerTokenMetadata(token),
+                        MimeTypeUtils.parseMimeType(WellKnownMimeType.MESSAGE_RSOCKET_AUTHENTICATION.getString()))
+                .tcp("localhost", rsocketPort.get());
+
+        // warms the point-read cache and opens the connections before measuring
+        Flux.range(1, this.rows).concatMap(this::httpGetBeer).blockLast();
+        this.requester.route(BeerRSocketController.BEER_ROUTE).data(1).retrieveMono(BeerDTO.class).block();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.requester.dispose();
+        this.context.close();
+        this.jwkServer.disposeNow();
+    }
+
+    @Benchmark
+    public BeerDTO httpGetBeerById() {
+        return httpGetBeer(randomId()).block();
+    }
+
+    @Benchmark
+    public BeerDTO rsocketGetBeerById() {
+        return this.requester.route(BeerRSocketController.BEER_ROUTE)
+                .data(randomId())
+                .retrieveMono(BeerDTO.class)
+                .block();
+    }
+
+    @Benchmark
+    public List<BeerDTO> httpListBeers() {
+        return this.webClient.get()
+                .uri(BeerController.BEER_PATH)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .retrieve()
+                .bodyToFlux(BeerDTO.class)
+                .collectList()
+                .block();
+    }
+
+    @Benchmark
+    public List<BeerDTO> rsocketListBeers() {
+        return this.requester.route(BeerRSocketController.BEER_LIST_ROUTE)
+                .retrieveFlux(BeerDTO.class)
+                .collectList()
+                .block();
+    }
+
+    private Mono<BeerDTO> httpGetBeer(int id) {
+        return this.webClient.get()
+                .uri(BeerController.BEER_PATH_ID, id)
+                .retrieve()
+                .bodyToMono(BeerDTO.class);
+    }
+
+    private int randomId() {
+        return ThreadLocalRandom.current().nextInt(1, this.rows + 1);
+    }
+
+    private static String sign(RSAKey signingKey, String issuerUri) {
+        NimbusJwtEncoder encoder = new NimbusJwtEncoder(new ImmutableJWKSet<>(new JWKSet(signingKey)));
+        Instant now = Instant.now();
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .issuer(issuerUri)
+                .subject("benchmark")
+                .issuedAt(now)
+                .expiresAt(now.plus(Duration.ofHours(2)))
+                .build();
+
+        return encoder.encode(JwtEncoderParameters.from(
+                JwsHeader.with(SignatureAlgorithm.RS256).keyId(signingKey.getKeyID()).build(), claims))
+                .getTokenValue();
+    }
+}
@@ -0,0 +1,86 @@
+package guru.springframework.spring6reactive.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Open-model load generator: requests are started at a fixed rate whether or not earlier ones have
+ * completed. Latency is measured from the time a request was scheduled to start, not from when it
+ * actually went out, so a stalled server shows up in the percentiles instead of silently lowering the
+ * request rate. Ticks that find {@code maxInFlight} requests outstanding are dropped and counted.
+ */
+class LoadDriver {
+    private final WebClient client;
+    private final LoadTestSettings settings;
+    private final List<Operation> weightedOperations = new ArrayList<>();
+    private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+    private final LongAdder dropped = new LongAdder();
+
+    LoadDriver(WebClient client, LoadTestSettings settings) {
+        this.client = client;
+        this.settings = settings;
+        settings.mix().forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                this.weightedOperations.add(operation);
+            }
+            this.stats.put(operation, new OperationStats());
+        });
+        if (this.weightedOperations.isEmpty()) {
+            throw new IllegalArgumentException("The request mix must contain at least one operation");
+        }
+    }
+
+    LoadReport run(Duration duration) {
+        this.stats.values().forEach(OperationStats::reset);
+        this.dropped.reset();
+
+        long periodNanos = TimeUnit.SECONDS.toNanos(1) / this.settings.rate();
+        long requests = duration.toNanos() / periodNanos;
+        long start = System.nanoTime();
+
+        Flux.interval(Duration.ofNanos(periodNanos))
+                .take(requests)
+                .onBackpressureDrop(tick -> this.dropped.increment())
+                .flatMap(tick -> send(start + (tick + 1) * periodNanos), this.settings.maxInFlight())
+                .blockLast();
+
+        return new LoadReport(this.settings, System.nanoTime() - start, this.stats, this.dropped.sum());
+    }
+
+    private Mono<Void> send(long intendedStart) {
+        List<Operation> operations = this.weightedOperations;
+        Operation operation = operations.get(ThreadLocalRandom.current().nextInt(operations.size()));
+        OperationStats operationStats = this.stats.get(operation);
+
+        return operation.send(this.client, this.settings)
+                .doOnNext(response -> operationStats.latency.recordValue(
+                        TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedStart)))
+                .onErrorResume(throwable -> {
+                    operationStats.errors.increment();
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    static class OperationStats {
+        final Histogram latency = new ConcurrentHistogram(3);
+        final LongAdder errors = new LongAdder();
+
+        void reset() {
+            this.latency.reset();
+            this.errors.reset();
+        }
+    }
+}
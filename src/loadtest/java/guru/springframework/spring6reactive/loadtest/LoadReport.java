@@ -0,0 +1,114 @@
+package guru.springframework.spring6reactive.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Result of one measured phase. The JSON layout only depends on the request mix, so reports of two
+ * runs with the same settings can be compared field by field. Next to the JSON file the combined
+ * latency distribution is written in HdrHistogram's {@code .hgrm} format for plotting.
+ */
+class LoadReport {
+    private final LoadTestSettings settings;
+    private final long elapsedNanos;
+    private final Map<Operation, LoadDriver.OperationStats> stats;
+    private final long dropped;
+    private final Histogram total = new Histogram(3);
+
+    LoadReport(LoadTestSettings settings, long elapsedNanos, Map<Operation, LoadDriver.OperationStats> stats,
+               long dropped) {
+        this.settings = settings;
+        this.elapsedNanos = elapsedNanos;
+        this.stats = stats;
+        this.dropped = dropped;
+        stats.values().forEach(operationStats -> this.total.add(operationStats.latency));
+    }
+
+    void print(PrintStream out) {
+        out.printf("%-16s %10s %8s %10s %10s %10s %10s %10s%n",
+                "operation", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        this.stats.forEach((operation, operationStats) ->
+                printRow(out, operation.displayName(), operationStats.latency, operationStats.errors.sum()));
+        printRow(out, "total", this.total, errors());
+        out.printf("dropped %d of the scheduled requests, target rate %d req/s%n", this.dropped, this.settings.rate());
+    }
+
+    void write(Path report) throws IOException {
+        Path directory = report.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+
+        Map<String, Object> operations = new LinkedHashMap<>();
+        this.stats.forEach((operation, operationStats) -> operations.put(operation.displayName(),
+                summary(operationStats.latency, operationStats.errors.sum())));
+
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("rate", this.settings.rate());
+        settings.put("warmupSeconds", this.settings.warmup().toSeconds());
+        settings.put("durationSeconds", this.settings.duration().toSeconds());
+        settings.put("maxInFlight", this.settings.maxInFlight());
+        settings.put("seedBeers", this.settings.seedBeers());
+        settings.put("seedCustomers", this.settings.seedCustomers());
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        this.settings.mix().forEach((operation, weight) -> mix.put(operation.displayName(), weight));
+        settings.put("mix", mix);
+
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("timestamp", Instant.now().toString());
+        json.put("settings", settings);
+        json.put("elapsedSeconds", elapsedSeconds());
+        json.put("dropped", this.dropped);
+        json.put("total", summary(this.total, errors()));
+        json.put("operations", operations);
+
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(report.toFile(), json);
+
+        String fileName = report.getFileName().toString().replaceFirst("\\.json$", "");
+        try (PrintStream out = new PrintStream(directory.resolve(fileName + ".hgrm").toFile())) {
+            // values are recorded in microseconds, the distribution is written in milliseconds
+            this.total.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+    private Map<String, Object> summary(Histogram latency, long errors) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", latency.getTotalCount());
+        summary.put("errors", errors);
+        summary.put("throughput", latency.getTotalCount() / elapsedSeconds());
+        summary.put("p50Millis", millis(latency.getValueAtPercentile(50)));
+        summary.put("p90Millis", millis(latency.getValueAtPercentile(90)));
+        summary.put("p99Millis", millis(latency.getValueAtPercentile(99)));
+        summary.put("p999Millis", millis(latency.getValueAtPercentile(99.9)));
+        summary.put("maxMillis", millis(latency.getMaxValue()));
+        summary.put("meanMillis", latency.getMean() / 1000.0);
+        return summary;
+    }
+
+    private void printRow(PrintStream out, String name, Histogram latency, long errors) {
+        out.printf("%-16s %10d %8d %10.1f %10.2f %10.2f %10.2f %10.2f%n", name, latency.getTotalCount(), errors,
+                latency.getTotalCount() / elapsedSeconds(), millis(latency.getValueAtPercentile(50)),
+                millis(latency.getValueAtPercentile(99)), millis(latency.getValueAtPercentile(99.9)),
+                millis(latency.getMaxValue()));
+    }
+
+    private long errors() {
+        return this.stats.values().stream().mapToLong(operationStats -> operationStats.errors.sum()).sum();
+    }
+
+    private double elapsedSeconds() {
+        return this.elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
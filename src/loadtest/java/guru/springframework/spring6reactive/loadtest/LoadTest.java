@@ -0,0 +1,96 @@
+package guru.springframework.spring6reactive.loadtest;
+
+import guru.springframework.spring6reactive.Spring6ReactiveApplication;
+import guru.springframework.spring6reactive.model.BatchOperationType;
+import guru.springframework.spring6reactive.model.BeerBatchOperationDTO;
+import guru.springframework.spring6reactive.model.BeerBatchRequestDTO;
+import guru.springframework.spring6reactive.services.BeerService;
+import guru.springframework.spring6reactive.services.CustomerService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Macro benchmark of the full WebFlux stack: security filter chain with real JWT validation,
+ * controllers, services, R2DBC pool and H2. The application is started in this JVM on a random port
+ * against its own seeded in-memory database, with {@link StubJwtIssuer} as authorization server.
+ * After a warmup phase the request mix is replayed at a fixed rate for the configured duration and
+ * the latency percentiles are written to the report.
+ * <p>
+ * Run with {@code mvn -Ploadtest verify}, settings are passed as
+ * {@code -Dloadtest.args="--rate=500 --duration=120s"}; see {@link LoadTestSettings} for all of them.
+ */
+public class LoadTest {
+    private static final int SEED_CONCURRENCY = 8;
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.parse(args);
+
+        try (StubJwtIssuer issuer = new StubJwtIssuer();
+             ConfigurableApplicationContext application = start(issuer)) {
+            seed(application, settings);
+
+            int port = application.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            String token = issuer.token(settings.warmup().plus(settings.duration()).plusHours(1));
+            LoadDriver driver = new LoadDriver(client(port, token, settings.maxInFlight()), settings);
+
+            System.out.printf("Warming up for %ds at %d req/s%n", settings.warmup().toSeconds(), settings.rate());
+            driver.run(settings.warmup());
+
+            System.out.printf("Measuring for %ds at %d req/s%n", settings.duration().toSeconds(), settings.rate());
+            LoadReport report = driver.run(settings.duration());
+            report.print(System.out);
+            report.write(settings.report());
+            System.out.println("Report written to " + settings.report().toAbsolutePath());
+        }
+    }
+
+    private static ConfigurableApplicationContext start(StubJwtIssuer issuer) {
+        // passed as arguments, default properties would lose against application.properties;
+        // all load comes from one client, the rate limit would answer most of it with 429
+        return new SpringApplicationBuilder(Spring6ReactiveApplication.class)
+                .run("--server.port=0",
+                        "--spring.r2dbc.url=r2dbc:h2:mem:///loadtest?options=DB_CLOSE_DELAY=-1",
+                        "--spring.security.oauth2.resourceserver.jwt.issuer-uri=" + issuer.issuerUri(),
+                        "--spring.security.oauth2.resourceserver.jwt.jwk-set-uri=" + issuer.jwkSetUri(),
+                        "--app.rate-limit.enabled=false",
+                        "--logging.level.root=WARN");
+    }
+
+    private static void seed(ConfigurableApplicationContext application, LoadTestSettings settings) {
+        BeerService beerService = application.getBean(BeerService.class);
+        CustomerService customerService = application.getBean(CustomerService.class);
+
+        Flux.range(0, settings.seedBeers())
+                .map(i -> BeerBatchOperationDTO.builder()
+                        .operation(BatchOperationType.CREATE)
+                        .beer(Operation.beer())
+                        .build())
+                .buffer(BeerBatchRequestDTO.MAX_OPERATIONS)
+                .concatMap(beerService::executeBatch)
+                .blockLast();
+
+        Flux.range(0, settings.seedCustomers())
+                .flatMap(i -> customerService.saveNewCustomer(Operation.customer()), SEED_CONCURRENCY)
+                .blockLast();
+    }
+
+    private static WebClient client(int port, String token, int maxConnections) {
+        ConnectionProvider connections = ConnectionProvider.builder("loadtest")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(-1)
+                .build();
+
+        return WebClient.builder()
+                .baseUrl("http://localhost:" + port)
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connections)))
+                .defaultHeaders(headers -> headers.setBearerAuth(token))
+                .build();
+    }
+}
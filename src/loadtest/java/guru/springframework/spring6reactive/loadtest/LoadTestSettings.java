@@ -0,0 +1,59 @@
+package guru.springframework.spring6reactive.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Load test parameters, read from {@code --name=value} arguments. Every parameter has a default so
+ * that two runs without arguments are directly comparable.
+ */
+record LoadTestSettings(int rate, Duration warmup, Duration duration, int maxInFlight, int seedBeers,
+                        int seedCustomers, Map<Operation, Integer> mix, Path report) {
+    static final String DEFAULT_MIX = "getBeer:35,listBeers:15,createBeer:3,updateBeer:5,"
+            + "getCustomer:25,listCustomers:10,createCustomer:2,updateCustomer:5";
+
+    static LoadTestSettings parse(String... args) {
+        Map<String, String> values = Arrays.stream(args)
+                .filter(arg -> arg.startsWith("--") && arg.contains("="))
+                .collect(Collectors.toMap(arg -> arg.substring(2, arg.indexOf('=')),
+                        arg -> arg.substring(arg.indexOf('=') + 1), (first, second) -> second));
+
+        return new LoadTestSettings(
+                get(values, "rate", "200", Integer::parseInt),
+                get(values, "warmup", "10s", LoadTestSettings::duration),
+                get(values, "duration", "60s", LoadTestSettings::duration),
+                get(values, "max-in-flight", "512", Integer::parseInt),
+                get(values, "seed-beers", "1000", Integer::parseInt),
+                get(values, "seed-customers", "1000", Integer::parseInt),
+                get(values, "mix", DEFAULT_MIX, LoadTestSettings::mix),
+                get(values, "report", "target/loadtest/report.json", Path::of));
+    }
+
+    private static <T> T get(Map<String, String> values, String name, String defaultValue,
+                             Function<String, T> parser) {
+        String value = values.getOrDefault(name, defaultValue);
+        try {
+            return parser.apply(value);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid value for --" + name + ": " + value, e);
+        }
+    }
+
+    private static Duration duration(String value) {
+        return Duration.parse("PT" + value.toUpperCase());
+    }
+
+    private static Map<Operation, Integer> mix(String value) {
+        Map<Operation, Integer> mix = new LinkedHashMap<>();
+        for (String entry : value.split(",")) {
+            String[] weight = entry.trim().split(":");
+            mix.put(Operation.byName(weight[0]), Integer.parseInt(weight[1]));
+        }
+        return mix;
+    }
+}
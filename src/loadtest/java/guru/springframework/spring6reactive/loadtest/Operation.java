@@ -0,0 +1,124 @@
+package guru.springframework.spring6reactive.loadtest;
+
+import guru.springframework.spring6reactive.controllers.BeerController;
+import guru.springframework.spring6reactive.controllers.CustomerController;
+import guru.springframework.spring6reactive.model.BeerDTO;
+import guru.springframework.spring6reactive.model.CustomerDTO;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The requests the load test can send. Reads and updates pick a random id out of the seeded rows,
+ * list requests start at a random cursor.
+ */
+enum Operation {
+    GET_BEER("getBeer") {
+        @Override
+        Mono<ResponseEntity<Void>> send(WebClient client, LoadTestSettings settings) {
+            return client.get().uri(BeerController.BEER_PATH_ID, randomId(settings.seedBeers()))
+                    .retrieve().toBodilessEntity();
+        }
+    },
+    LIST_BEERS("listBeers") {
+        @Override
+        Mono<ResponseEntity<Void>> send(WebClient client, LoadTestSettings settings) {
+            return client.get().uri(uriBuilder -> uriBuilder.path(BeerController.BEER_PATH)
+                            .queryParam("after", randomId(settings.seedBeers()))
+                            .build())
+                    .retrieve().toBodilessEntity();
+        }
+    },
+    CREATE_BEER("createBeer") {
+        @Override
+        Mono<ResponseEntity<Void>> send(WebClient client, LoadTestSettings settings) {
+            return client.post().uri(BeerController.BEER_PATH)
+                    .bodyValue(beer())
+                    .retrieve().toBodilessEntity();
+        }
+    },
+    UPDATE_BEER("updateBeer") {
+        @Override
+        Mono<ResponseEntity<Void>> send(WebClient client, LoadTestSettings settings) {
+            return client.put().uri(BeerController.BEER_PATH_ID, randomId(settings.seedBeers()))
+                    .bodyValue(beer())
+                    .retrieve().toBodilessEntity();
+        }
+    },
+    GET_CUSTOMER("getCustomer") {
+        @Override
+        Mono<ResponseEntity<Void>> send(WebClient client, LoadTestSettings settings) {
+            return client.get().uri(CustomerController.CUSTOMER_PATH_ID, randomId(settings.seedCustomers()))
+                    .retrieve().toBodilessEntity();
+        }
+    },
+    LIST_CUSTOMERS("listCustomers") {
+        @Override
+        Mono<ResponseEntity<Void>> send(WebClient client, LoadTestSettings settings) {
+            return client.get().uri(uriBuilder -> uriBuilder.path(CustomerController.CUSTOMER_PATH)
+                            .queryParam("after", randomId(settings.seedCustomers()))
+                            .build())
+                    .retrieve().toBodilessEntity();
+        }
+    },
+    CREATE_CUSTOMER("createCustomer") {
+        @Override
+        Mono<ResponseEntity<Void>> send(WebClient client, LoadTestSettings settings) {
+            return client.post().uri(CustomerController.CUSTOMER_PATH)
+                    .bodyValue(customer())
+                    .retrieve().toBodilessEntity();
+        }
+    },
+    UPDATE_CUSTOMER("updateCustomer") {
+        @Override
+        Mono<ResponseEntity<Void>> send(WebClient client, LoadTestSettings settings) {
+            return client.put().uri(CustomerController.CUSTOMER_PATH_ID, randomId(settings.seedCustomers()))
+                    .bodyValue(customer())
+                    .retrieve().toBodilessEntity();
+        }
+    };
+
+    private final String displayName;
+
+    Operation(String displayName) {
+        this.displayName = displayName;
+    }
+
+    abstract Mono<ResponseEntity<Void>> send(WebClient client, LoadTestSettings settings);
+
+    String displayName() {
+        return this.displayName;
+    }
+
+    static Operation byName(String name) {
+        return Arrays.stream(values())
+                .filter(operation -> operation.displayName.equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown operation " + name));
+    }
+
+    static BeerDTO beer() {
+        int suffix = ThreadLocalRandom.current().nextInt(1_000_000);
+        return BeerDTO.builder()
+                .beerName("Load Test Beer " + suffix)
+                .beerStyle(suffix % 2 == 0 ? "IPA" : "Pale Ale")
+                .upc(String.valueOf(100_000 + suffix))
+                .quantityOnHand(suffix % 500)
+                .price(new BigDecimal("9.99"))
+                .build();
+    }
+
+    static CustomerDTO customer() {
+        return CustomerDTO.builder()
+                .customerName("Load Test Customer " + ThreadLocalRandom.current().nextInt(1_000_000))
+                .build();
+    }
+
+    private static int randomId(int seeded) {
+        return ThreadLocalRandom.current().nextInt(1, seeded + 1);
+    }
+}
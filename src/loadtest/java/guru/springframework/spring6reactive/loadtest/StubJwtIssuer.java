@@ -0,0 +1,70 @@
+package guru.springframework.spring6reactive.loadtest;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Minimal authorization server: publishes one RSA key on {@value #JWK_SET_PATH} and signs tokens
+ * with it, so the application validates tokens exactly as it does in production.
+ */
+class StubJwtIssuer implements AutoCloseable {
+    static final String JWK_SET_PATH = "/oauth2/jwks";
+
+    private final RSAKey signingKey;
+    private final DisposableServer server;
+
+    StubJwtIssuer() throws JOSEException {
+        this.signingKey = new RSAKeyGenerator(2048).keyID("loadtest").generate();
+        String jwkSet = new JWKSet(this.signingKey.toPublicJWK()).toString();
+        this.server = HttpServer.create()
+                .port(0)
+                .route(routes -> routes.get(JWK_SET_PATH, (request, response) -> response
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .sendString(Mono.just(jwkSet))))
+                .bindNow();
+    }
+
+    String issuerUri() {
+        return "http://localhost:" + this.server.port();
+    }
+
+    String jwkSetUri() {
+        return issuerUri() + JWK_SET_PATH;
+    }
+
+    String token(Duration validity) {
+        NimbusJwtEncoder encoder = new NimbusJwtEncoder(new ImmutableJWKSet<>(new JWKSet(this.signingKey)));
+        Instant now = Instant.now();
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .issuer(issuerUri())
+                .subject("loadtest")
+                .issuedAt(now)
+                .expiresAt(now.plus(validity))
+                .build();
+
+        return encoder.encode(JwtEncoderParameters.from(
+                JwsHeader.with(SignatureAlgorithm.RS256).keyId(this.signingKey.getKeyID()).build(), claims))
+                .getTokenValue();
+    }
+
+    @Override
+    public void close() {
+        this.server.disposeNow();
+    }
+}
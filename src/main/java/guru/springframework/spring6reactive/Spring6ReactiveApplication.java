@@ -1,9 +1,12 @@
 package guru.springframework.spring6reactive;
 
+import guru.springframework.spring6reactive.config.NativeRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(NativeRuntimeHints.class)
 public class Spring6ReactiveApplication {
 
     public static void main(String[] args) {
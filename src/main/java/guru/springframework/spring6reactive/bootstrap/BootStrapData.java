@@ -5,13 +5,24 @@ import guru.springframework.spring6reactive.domain.Customer;
 import guru.springframework.spring6reactive.repositories.BeerRepository;
 import guru.springframework.spring6reactive.repositories.CustomerRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+/**
+ * Loads the sample rows into empty tables. The runner blocks until they are committed, so the
+ * application only reports itself ready once the data is there, and rows are inserted one after
+ * the other so they always get the same ids.
+ */
+@Slf4j
 @Component
+@Order(1)
 @RequiredArgsConstructor
 public class BootStrapData implements CommandLineRunner {
     private final BeerRepository beerRepository;
@@ -19,70 +30,69 @@ public class BootStrapData implements CommandLineRunner {
 
     @Override
     public void run(String... args) throws Exception {
-        loadBeerData();
-        beerRepository.count().subscribe(count -> {
-            System.out.println("Count is: " + count);
-        });
-
-        loadCustomerData();
-        this.customerRepository.count().subscribe(count -> System.out.println("Count is: " + count));
+        loadBeerData()
+                .then(this.beerRepository.count())
+                .doOnNext(count -> log.info("Beer count is: {}", count))
+                .then(loadCustomerData())
+                .then(this.customerRepository.count())
+                .doOnNext(count -> log.info("Customer count is: {}", count))
+                .block();
     }
 
-    private void loadCustomerData() {
-        this.customerRepository.count().subscribe(count -> {
-            if (count == 0) {
-                this.customerRepository.save(Customer.builder()
+    private Mono<Void> loadCustomerData() {
+        return this.customerRepository.count()
+                .filter(count -> count == 0)
+                .flatMapMany(count -> Flux.just(
+                        Customer.builder()
                                 .customerName("Customer 1")
-                        .build()).subscribe();
-
-                this.customerRepository.save(Customer.builder()
-                        .customerName("Customer 2")
-                        .build()).subscribe();
-
-                this.customerRepository.save(Customer.builder()
-                        .customerName("Customer 3")
-                        .build()).subscribe();
-            }
-        });
+                                .build(),
+                        Customer.builder()
+                                .customerName("Customer 2")
+                                .build(),
+                        Customer.builder()
+                                .customerName("Customer 3")
+                                .build()))
+                .concatMap(this.customerRepository::save)
+                .then();
     }
 
-    private void loadBeerData() {
-        beerRepository.count().subscribe(count -> {
-            if (count == 0) {
-                Beer beer1 = Beer.builder()
-                        .beerName("Galaxy Cat")
-                        .beerStyle("Pale Ale")
-                        .upc("12356")
-                        .price(new BigDecimal("12.99"))
-                        .quantityOnHand(122)
-                        .createdDate(LocalDateTime.now())
-                        .lastModifiedDate(LocalDateTime.now())
-                        .build();
+    private Mono<Void> loadBeerData() {
+        return this.beerRepository.count()
+                .filter(count -> count == 0)
+                .flatMapMany(count -> {
+                    Beer beer1 = Beer.builder()
+                            .beerName("Galaxy Cat")
+                            .beerStyle("Pale Ale")
+                            .upc("12356")
+                            .price(new BigDecimal("12.99"))
+                            .quantityOnHand(122)
+                            .createdDate(LocalDateTime.now())
+                            .lastModifiedDate(LocalDateTime.now())
+                            .build();
 
-                Beer beer2 = Beer.builder()
-                        .beerName("Crank")
-                        .beerStyle("Pale Ale")
-                        .upc("12356222")
-                        .price(new BigDecimal("11.99"))
-                        .quantityOnHand(392)
-                        .createdDate(LocalDateTime.now())
-                        .lastModifiedDate(LocalDateTime.now())
-                        .build();
+                    Beer beer2 = Beer.builder()
+                            .beerName("Crank")
+                            .beerStyle("Pale Ale")
+                            .upc("12356222")
+                            .price(new BigDecimal("11.99"))
+                            .quantityOnHand(392)
+                            .createdDate(LocalDateTime.now())
+                            .lastModifiedDate(LocalDateTime.now())
+                            .build();
 
-                Beer beer3 = Beer.builder()
-                        .beerName("Sunshine City")
-                        .beerStyle("IPA")
-                        .upc("12356")
-                        .price(new BigDecimal("13.99"))
-                        .quantityOnHand(144)
-                        .createdDate(LocalDateTime.now())
-                        .lastModifiedDate(LocalDateTime.now())
-                        .build();
+                    Beer beer3 = Beer.builder()
+                            .beerName("Sunshine City")
+                            .beerStyle("IPA")
+                            .upc("12356")
+                            .price(new BigDecimal("13.99"))
+                            .quantityOnHand(144)
+                            .createdDate(LocalDateTime.now())
+                            .lastModifiedDate(LocalDateTime.now())
+                            .build();
 
-                beerRepository.save(beer1).subscribe();
-                beerRepository.save(beer2).subscribe();
-                beerRepository.save(beer3).subscribe();
-            }
-        });
+                    return Flux.just(beer1, beer2, beer3);
+                })
+                .concatMap(this.beerRepository::save)
+                .then();
     }
 }
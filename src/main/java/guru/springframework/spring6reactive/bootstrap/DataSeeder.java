@@ -0,0 +1,159 @@
+package guru.springframework.spring6reactive.bootstrap;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fills the tables with generated rows when the {@code seed} profile is active, to reproduce
+ * production-sized data locally. Rows are written as multi-row {@code INSERT}s of {@code batch-size}
+ * rows, at most {@code concurrency} of them in flight. The content of every batch only depends on the
+ * random seed and the batch number, so two runs with the same settings produce the same rows (ids may
+ * be assigned in a different order when batches run concurrently). The runner blocks until all rows
+ * are committed, which keeps the application from reporting itself ready with a half-filled database.
+ */
+@Slf4j
+@Component
+@Profile("seed")
+@Order(2)
+public class DataSeeder implements CommandLineRunner {
+    private static final String INSERT_BEERS = "INSERT INTO beer (beer_name, beer_style, upc, quantity_on_hand, "
+            + "price, created_date, last_modified_date) VALUES ";
+    private static final int BEER_COLUMNS = 7;
+    private static final String INSERT_CUSTOMERS = "INSERT INTO customer (customer_name, created_date, "
+            + "last_modified_date) VALUES ";
+    private static final int CUSTOMER_COLUMNS = 3;
+
+    private static final String[] BEER_STYLES = {"Pale Ale", "IPA", "Lager", "Pilsner", "Stout", "Porter",
+            "Wheat", "Saison", "Sour", "Gose"};
+    private static final String[] NAME_ADJECTIVES = {"Galaxy", "Hazy", "Golden", "Midnight", "Crimson", "Wild",
+            "Lazy", "Rusty", "Sunny", "Frozen"};
+    private static final String[] NAME_NOUNS = {"Cat", "City", "Crank", "River", "Fox", "Harbor", "Anchor",
+            "Orchard", "Summit", "Lantern"};
+    private static final String[] FIRST_NAMES = {"Ada", "Ben", "Chloe", "Dan", "Eva", "Finn", "Grace", "Hugo",
+            "Iris", "Jonas"};
+    private static final String[] LAST_NAMES = {"Novak", "Smith", "Kovac", "Miller", "Horvat", "Garcia", "Zupan",
+            "Brown", "Krajnc", "Rossi"};
+
+    private final DatabaseClient databaseClient;
+    private final long beers;
+    private final long customers;
+    private final int batchSize;
+    private final int concurrency;
+    private final long randomSeed;
+
+    public DataSeeder(DatabaseClient databaseClient,
+                      @Value("${app.seed.beers}") long beers,
+                      @Value("${app.seed.customers}") long customers,
+                      @Value("${app.seed.batch-size}") int batchSize,
+                      @Value("${app.seed.concurrency}") int concurrency,
+                      @Value("${app.seed.random-seed}") long randomSeed) {
+        this.databaseClient = databaseClient;
+        this.beers = beers;
+        this.customers = customers;
+        this.batchSize = batchSize;
+        this.concurrency = concurrency;
+        this.randomSeed = randomSeed;
+    }
+
+    @Override
+    public void run(String... args) throws Exception {
+        seed("beer", this.beers, this::insertBeers)
+                .then(seed("customer", this.customers, this::insertCustomers))
+                .block();
+    }
+
+    private Mono<Long> seed(String table, long rows, BatchInsert insert) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            long batches = (rows + this.batchSize - 1) / this.batchSize;
+
+            return Flux.range(0, Math.toIntExact(batches))
+                    .flatMap(batch -> insert.rows(batch,
+                            (int) Math.min(this.batchSize, rows - (long) batch * this.batchSize)), this.concurrency)
+                    .reduce(0L, Long::sum)
+                    .doOnNext(inserted -> {
+                        double seconds = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+                        log.info("Seeded {} {} rows in {} s ({} rows/s)", inserted, table,
+                                String.format("%.1f", seconds), String.format("%.0f", inserted / seconds));
+                    });
+        });
+    }
+
+    private Mono<Long> insertBeers(int batch, int rows) {
+        Random random = random("beer", batch);
+        LocalDateTime now = LocalDateTime.now();
+        List<Object> values = new ArrayList<>(rows * BEER_COLUMNS);
+
+        for (int i = 0; i < rows; i++) {
+            values.add(pick(random, NAME_ADJECTIVES) + " " + pick(random, NAME_NOUNS) + " "
+                    + ((long) batch * this.batchSize + i));
+            values.add(pick(random, BEER_STYLES));
+            values.add(String.format("%012d", random.nextLong(1_000_000_000_000L)));
+            values.add(random.nextInt(1000));
+            values.add(BigDecimal.valueOf(500 + random.nextInt(2500), 2));
+            values.add(now);
+            values.add(now);
+        }
+
+        return insert(INSERT_BEERS, BEER_COLUMNS, values);
+    }
+
+    private Mono<Long> insertCustomers(int batch, int rows) {
+        Random random = random("customer", batch);
+        LocalDateTime now = LocalDateTime.now();
+        List<Object> values = new ArrayList<>(rows * CUSTOMER_COLUMNS);
+
+        for (int i = 0; i < rows; i++) {
+            values.add(pick(random, FIRST_NAMES) + " " + pick(random, LAST_NAMES) + " "
+                    + ((long) batch * this.batchSize + i));
+            values.add(now);
+            values.add(now);
+        }
+
+        return insert(INSERT_CUSTOMERS, CUSTOMER_COLUMNS, values);
+    }
+
+    private Mono<Long> insert(String insert, int columns, List<Object> values) {
+        StringBuilder sql = new StringBuilder(insert);
+        for (int row = 0; row < values.size() / columns; row++) {
+            sql.append(row == 0 ? "(" : ", (");
+            for (int column = 0; column < columns; column++) {
+                sql.append(column == 0 ? "$" : ", $").append(row * columns + column + 1);
+            }
+            sql.append(')');
+        }
+
+        DatabaseClient.GenericExecuteSpec statement = this.databaseClient.sql(sql.toString());
+        for (int i = 0; i < values.size(); i++) {
+            statement = statement.bind(i, values.get(i));
+        }
+        return statement.fetch().rowsUpdated();
+    }
+
+    private Random random(String table, int batch) {
+        return new Random(this.randomSeed * 31 + table.hashCode() * 17L + batch);
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    @FunctionalInterface
+    private interface BatchInsert {
+        Mono<Long> rows(int batch, int rows);
+    }
+}
@@ -0,0 +1,44 @@
+package guru.springframework.spring6reactive.config;
+
+import guru.springframework.spring6reactive.mappers.BeerMapper;
+import guru.springframework.spring6reactive.mappers.CustomerMapper;
+import guru.springframework.spring6reactive.model.BeerDTO;
+import guru.springframework.spring6reactive.model.CustomerDTO;
+import guru.springframework.spring6reactive.repositories.BeerRepository;
+import guru.springframework.spring6reactive.repositories.CustomerRepository;
+import guru.springframework.spring6reactive.services.BatchLoader;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Batch loaders behind the point reads of the beer and customer services. Cache misses that arrive
+ * within {@code app.batch-loader.window} of each other are loaded with one {@code IN} query.
+ */
+@Configuration
+public class BatchLoaderConfig {
+    @Bean
+    BatchLoader<BeerDTO> beerLoader(BeerRepository beerRepository, BeerMapper beerMapper,
+                                    @Value("${app.batch-loader.max-batch-size}") int maxBatchSize,
+                                    @Value("${app.batch-loader.window}") Duration window,
+                                    @Value("${app.batch-loader.max-concurrent-batches}") int maxConcurrentBatches,
+                                    MeterRegistry meterRegistry) {
+        return new BatchLoader<>("beer", maxBatchSize, window, maxConcurrentBatches,
+                ids -> beerRepository.findAllById(ids).map(beerMapper::beerToBeerDTO), BeerDTO::getId,
+                meterRegistry);
+    }
+
+    @Bean
+    BatchLoader<CustomerDTO> customerLoader(CustomerRepository customerRepository, CustomerMapper customerMapper,
+                                            @Value("${app.batch-loader.max-batch-size}") int maxBatchSize,
+                                            @Value("${app.batch-loader.window}") Duration window,
+                                            @Value("${app.batch-loader.max-concurrent-batches}") int maxConcurrentBatches,
+                                            MeterRegistry meterRegistry) {
+        return new BatchLoader<>("customer", maxBatchSize, window, maxConcurrentBatches,
+                ids -> customerRepository.findAllById(ids).map(customerMapper::customerToCustomerDTO),
+                CustomerDTO::getId, meterRegistry);
+    }
+}
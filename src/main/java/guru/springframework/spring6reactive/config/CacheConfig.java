@@ -0,0 +1,44 @@
+package guru.springframework.spring6reactive.config;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import guru.springframework.spring6reactive.model.BeerDTO;
+import guru.springframework.spring6reactive.model.CustomerDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Read-through caches in front of the point reads of the beer and customer services. Entries are
+ * evicted by size and by age, and hit/miss/eviction statistics are published as {@code cache.*} meters.
+ */
+@Configuration
+public class CacheConfig {
+    @Bean
+    AsyncCache<Integer, BeerDTO> beerCache(@Value("${app.cache.beer.maximum-size}") long maximumSize,
+                                           @Value("${app.cache.beer.expire-after-write}") Duration expireAfterWrite,
+                                           MeterRegistry meterRegistry) {
+        return CaffeineCacheMetrics.monitor(meterRegistry,
+                buildCache(maximumSize, expireAfterWrite), "beerCache");
+    }
+
+    @Bean
+    AsyncCache<Integer, CustomerDTO> customerCache(@Value("${app.cache.customer.maximum-size}") long maximumSize,
+                                                   @Value("${app.cache.customer.expire-after-write}") Duration expireAfterWrite,
+                                                   MeterRegistry meterRegistry) {
+        return CaffeineCacheMetrics.monitor(meterRegistry,
+                buildCache(maximumSize, expireAfterWrite), "customerCache");
+    }
+
+    private static <V> AsyncCache<Integer, V> buildCache(long maximumSize, Duration expireAfterWrite) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .buildAsync();
+    }
+}
@@ -0,0 +1,92 @@
+package guru.springframework.spring6reactive.config;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+
+/**
+ * Remembers tokens that already passed signature and claim validation. Entries are keyed by the
+ * SHA-256 of the raw token and never outlive the token's {@code exp} claim, nor {@code maxTtl}.
+ * Tokens that fail validation are not cached.
+ */
+public class CachingReactiveJwtDecoder implements ReactiveJwtDecoder {
+    private final ReactiveJwtDecoder delegate;
+    private final AsyncCache<String, Jwt> cache;
+    private final Timer verificationTimer;
+
+    public CachingReactiveJwtDecoder(ReactiveJwtDecoder delegate, long maximumSize, Duration maxTtl,
+                                     Clock clock, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.cache = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new UntilExpiry(maxTtl, clock))
+                .recordStats()
+                .<String, Jwt>buildAsync(), "jwtCache");
+        this.verificationTimer = Timer.builder("jwt.verification")
+                .description("Time spent verifying tokens that were not cached")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Jwt> decode(String token) {
+        return Mono.fromFuture(this.cache.get(sha256(token), (key, executor) -> verify(token).toFuture()), true);
+    }
+
+    private Mono<Jwt> verify(String token) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start();
+
+            return this.delegate.decode(token)
+                    .doFinally(signal -> sample.stop(this.verificationTimer));
+        });
+    }
+
+    private static String sha256(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record UntilExpiry(Duration maxTtl, Clock clock) implements Expiry<String, Jwt> {
+        @Override
+        public long expireAfterCreate(String key, Jwt jwt, long currentTime) {
+            Instant expiresAt = jwt.getExpiresAt();
+            if (expiresAt == null) {
+                return this.maxTtl.toNanos();
+            }
+
+            Duration remaining = Duration.between(this.clock.instant(), expiresAt);
+            if (remaining.isNegative()) {
+                return 0;
+            }
+            return remaining.compareTo(this.maxTtl) < 0 ? remaining.toNanos() : this.maxTtl.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Jwt jwt, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, jwt, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Jwt jwt, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package guru.springframework.spring6reactive.config;
+
+import guru.springframework.spring6reactive.model.BeerDTO;
+import guru.springframework.spring6reactive.model.CustomerDTO;
+import guru.springframework.spring6reactive.services.ChangeFeed;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Change feeds the beer and customer services publish their writes to, streamed to clients as
+ * server-sent events. Both share the replay, buffer and heartbeat settings of {@code app.change-feed.*},
+ * and take the start of the process as their epoch.
+ */
+@Configuration
+public class ChangeFeedConfig {
+    private final long epoch = System.currentTimeMillis();
+
+    @Bean
+    ChangeFeed<BeerDTO> beerChangeFeed(@Value("${app.change-feed.replay-size}") int replaySize,
+                                       @Value("${app.change-feed.subscriber-buffer}") int subscriberBuffer,
+                                       @Value("${app.change-feed.heartbeat-interval}") Duration heartbeatInterval,
+                                       MeterRegistry meterRegistry) {
+        return new ChangeFeed<>("beer", this.epoch, replaySize, subscriberBuffer, heartbeatInterval, meterRegistry);
+    }
+
+    @Bean
+    ChangeFeed<CustomerDTO> customerChangeFeed(@Value("${app.change-feed.replay-size}") int replaySize,
+                                               @Value("${app.change-feed.subscriber-buffer}") int subscriberBuffer,
+                                               @Value("${app.change-feed.heartbeat-interval}") Duration heartbeatInterval,
+                                               MeterRegistry meterRegistry) {
+        return new ChangeFeed<>("customer", this.epoch, replaySize, subscriberBuffer, heartbeatInterval, meterRegistry);
+    }
+}
@@ -0,0 +1,88 @@
+package guru.springframework.spring6reactive.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.reactivestreams.Publisher;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.CodecConfigurer;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary alternatives to JSON for every endpoint, negotiated through the {@code Accept} and
+ * {@code Content-Type} headers: CBOR ({@code application/cbor}) and Smile ({@code application/x-jackson-smile}).
+ * Both mappers are built from the application's Jackson configuration, so the documents have the same
+ * structure as the JSON ones, but numbers are written as binary values and strings are length-prefixed
+ * instead of being formatted, escaped and parsed as text.
+ */
+@Configuration
+public class CodecConfig implements WebFluxConfigurer {
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    private final ObjectMapper objectMapper;
+    private final ObjectMapper cborMapper;
+    private final ObjectMapper smileMapper;
+
+    public CodecConfig(ObjectMapper objectMapper, Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        this.objectMapper = objectMapper;
+        this.cborMapper = objectMapperBuilder.factory(new CBORFactory()).build();
+        this.smileMapper = objectMapperBuilder.factory(new SmileFactory()).build();
+    }
+
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        // the mapper constructors fall back to the JSON media types unless given their own
+        configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(this.smileMapper, APPLICATION_SMILE));
+        configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(this.smileMapper, APPLICATION_SMILE));
+
+        // custom codecs are consulted before the default ones, JSON is registered again in front of CBOR
+        // so that it stays the response format for clients that accept anything
+        CodecConfigurer.CustomCodecs customCodecs = configurer.customCodecs();
+        customCodecs.registerWithDefaultConfig(new Jackson2JsonEncoder(this.objectMapper));
+        customCodecs.registerWithDefaultConfig(new Jackson2JsonDecoder(this.objectMapper));
+        customCodecs.registerWithDefaultConfig(new CollectingCborEncoder(this.cborMapper));
+        customCodecs.registerWithDefaultConfig(new Jackson2CborDecoder(this.cborMapper, MediaType.APPLICATION_CBOR));
+    }
+
+    /**
+     * Spring's CBOR encoder only writes single values. Flux responses are collected and written as one
+     * array instead, which is what the JSON encoder does for non-streaming media types as well.
+     */
+    private static class CollectingCborEncoder extends Jackson2CborEncoder {
+        CollectingCborEncoder(ObjectMapper mapper) {
+            super(mapper, MediaType.APPLICATION_CBOR);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+                                       ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+            if (inputStream instanceof Mono<?> mono) {
+                return mono.map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints)).flux();
+            }
+
+            ResolvableType listType = ResolvableType.forClassWithGenerics(List.class, elementType);
+            return Flux.from(inputStream)
+                    .collectList()
+                    .map(values -> encodeValue(values, bufferFactory, listType, mimeType, hints))
+                    .flux();
+        }
+    }
+}
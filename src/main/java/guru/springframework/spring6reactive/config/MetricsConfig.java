@@ -0,0 +1,21 @@
+package guru.springframework.spring6reactive.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorResourceFactory;
+import reactor.netty.resources.LoopResources;
+
+/**
+ * Metrics that Spring Boot does not register on its own. Per-route {@code http.server.requests}
+ * timers come from the actuator, service timers from {@code ServiceMetrics}; histogram buckets and
+ * SLO boundaries of both are set through {@code management.metrics.distribution.*}.
+ */
+@Configuration
+public class MetricsConfig {
+    @Bean
+    NettyEventLoopMetrics nettyEventLoopMetrics(ReactorResourceFactory reactorResourceFactory) {
+        // same loops as the server, which prefers the native transport whenever it is available
+        return new NettyEventLoopMetrics(reactorResourceFactory.getLoopResources()
+                .onServer(LoopResources.DEFAULT_NATIVE));
+    }
+}
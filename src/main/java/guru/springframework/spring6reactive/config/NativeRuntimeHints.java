@@ -0,0 +1,77 @@
+package guru.springframework.spring6reactive.config;
+
+import guru.springframework.spring6reactive.domain.Beer;
+import guru.springframework.spring6reactive.domain.BeerStyleStats;
+import guru.springframework.spring6reactive.domain.Customer;
+import guru.springframework.spring6reactive.domain.TableVersion;
+import guru.springframework.spring6reactive.model.BeerBatchOperationDTO;
+import guru.springframework.spring6reactive.model.BeerBatchRequestDTO;
+import guru.springframework.spring6reactive.model.BeerBatchResultDTO;
+import guru.springframework.spring6reactive.model.BeerDTO;
+import guru.springframework.spring6reactive.model.BeerFilterDTO;
+import guru.springframework.spring6reactive.model.BeerStyleStatsDTO;
+import guru.springframework.spring6reactive.model.ChangeEventDTO;
+import guru.springframework.spring6reactive.model.CustomerDTO;
+import guru.springframework.spring6reactive.model.LookupRequestDTO;
+import guru.springframework.spring6reactive.model.LookupResultDTO;
+import guru.springframework.spring6reactive.model.StockAdjustmentDTO;
+import guru.springframework.spring6reactive.model.StockEventDTO;
+import guru.springframework.spring6reactive.model.StockEventsResultDTO;
+import guru.springframework.spring6reactive.model.TableVersionDTO;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+import java.util.List;
+
+/**
+ * Reflection and resource hints for the native image. Spring's AOT processing already covers the bean
+ * definitions and the types of controller signatures; these are the things it cannot see:
+ * <ul>
+ * <li>entities and aggregate rows that R2DBC instantiates through their Lombok-generated constructors
+ * and setters, including the ones only returned by {@code @Query} methods,</li>
+ * <li>DTOs that Jackson and the query parameter binder populate reflectively,</li>
+ * <li>the R2DBC drivers, discovered through {@code ServiceLoader} from the connection URL,</li>
+ * <li>the Caffeine cache classes of the point-read caches and the JWT cache, and the cache and node
+ * classes of the rate limiter, which Caffeine looks up by name for the features a cache is built with
+ * and the reachability metadata does not list,</li>
+ * <li>{@code schema.sql}, which is loaded as a classpath resource on startup.</li>
+ * </ul>
+ * H2 and the {@code PSWMW} nodes of the point-read and JWT caches come from the GraalVM reachability metadata
+ * repository enabled in the {@code native} profile. Nimbus has no entry there and needs none: it parses JWK sets and claims
+ * into maps and looks up its signature algorithms through JCA, whose services native-image registers
+ * on its own.
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+    private static final List<Class<?>> BINDING_TYPES = List.of(Beer.class, Customer.class, TableVersion.class,
+            BeerStyleStats.class, BeerDTO.class, CustomerDTO.class, BeerFilterDTO.class, BeerStyleStatsDTO.class,
+            TableVersionDTO.class, BeerBatchRequestDTO.class, BeerBatchOperationDTO.class, BeerBatchResultDTO.class,
+            StockAdjustmentDTO.class, StockEventDTO.class, StockEventsResultDTO.class, ChangeEventDTO.class,
+            LookupRequestDTO.class, LookupResultDTO.class);
+
+    private static final List<String> R2DBC_PROVIDERS = List.of("io.r2dbc.h2.H2ConnectionFactoryProvider",
+            "io.r2dbc.pool.PoolingConnectionFactoryProvider");
+
+    // bounded, size-limited caches with stats: SSSMSW with expiry after write (beer and customer point
+    // reads), SSSMSA with per-entry expiry (JWT cache); without stats, SSMSA and its PSAMS nodes with
+    // expiry after access (rate limit buckets)
+    private static final List<String> CAFFEINE_CLASSES = List.of("com.github.benmanes.caffeine.cache.SSSMSW",
+            "com.github.benmanes.caffeine.cache.SSSMSA", "com.github.benmanes.caffeine.cache.SSMSA",
+            "com.github.benmanes.caffeine.cache.PSAMS");
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+                BINDING_TYPES.toArray(Class<?>[]::new));
+
+        R2DBC_PROVIDERS.forEach(provider -> hints.reflection().registerType(
+                TypeReference.of(provider), MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS));
+
+        CAFFEINE_CLASSES.forEach(type -> hints.reflection().registerType(
+                TypeReference.of(type), MemberCategory.INVOKE_DECLARED_CONSTRUCTORS));
+
+        hints.resources().registerPattern("schema.sql");
+    }
+}
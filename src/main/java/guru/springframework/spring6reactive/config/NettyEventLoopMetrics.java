@@ -0,0 +1,46 @@
+package guru.springframework.spring6reactive.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+
+/**
+ * Gauges for the event loops that serve HTTP requests. A growing {@code netty.eventloop.pending.tasks}
+ * means work is queued behind a busy loop, usually because something blocks a Netty thread.
+ */
+public class NettyEventLoopMetrics implements MeterBinder {
+    private final EventLoopGroup eventLoopGroup;
+
+    public NettyEventLoopMetrics(EventLoopGroup eventLoopGroup) {
+        this.eventLoopGroup = eventLoopGroup;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        int index = 0;
+        for (EventExecutor executor : this.eventLoopGroup) {
+            if (executor instanceof SingleThreadEventExecutor eventLoop) {
+                Gauge.builder("netty.eventloop.pending.tasks", eventLoop, SingleThreadEventExecutor::pendingTasks)
+                        .description("Tasks waiting to run on the event loop")
+                        .tag("eventloop", String.valueOf(index))
+                        .register(registry);
+            }
+            index++;
+        }
+
+        Gauge.builder("netty.eventloop.count", this.eventLoopGroup, NettyEventLoopMetrics::count)
+                .description("Event loops serving HTTP requests")
+                .register(registry);
+    }
+
+    private static int count(EventLoopGroup eventLoopGroup) {
+        int count = 0;
+        for (EventExecutor ignored : eventLoopGroup) {
+            count++;
+        }
+        return count;
+    }
+}
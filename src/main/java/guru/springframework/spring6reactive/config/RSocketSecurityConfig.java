@@ -0,0 +1,60 @@
+package guru.springframework.spring6reactive.config;
+
+import jakarta.validation.Validator;
+import org.springframework.boot.autoconfigure.rsocket.RSocketMessageHandlerCustomizer;
+import org.springframework.boot.rsocket.server.RSocketServerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.config.annotation.rsocket.EnableRSocketSecurity;
+import org.springframework.security.config.annotation.rsocket.RSocketSecurity;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtReactiveAuthenticationManager;
+import org.springframework.security.rsocket.core.PayloadSocketAcceptorInterceptor;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+
+import java.time.Clock;
+
+/**
+ * Security for the RSocket endpoints. Callers send their bearer token as authentication metadata of the
+ * setup frame; it is validated by the same {@link ReactiveJwtDecoder} as the HTTP API and the resulting
+ * authentication applies to every request on that connection, so the token is only checked once per
+ * connection instead of once per call. Tokens may also be sent with individual requests.
+ * <p>
+ * A connection does not outlive its setup token: it is closed when the token's {@code exp} is reached,
+ * and callers reconnect with a fresh token. Revoked tokens and rotated keys therefore take effect on
+ * long-lived connections within one token lifetime.
+ */
+@Configuration
+@EnableRSocketSecurity
+public class RSocketSecurityConfig {
+    @Bean
+    PayloadSocketAcceptorInterceptor rsocketInterceptor(RSocketSecurity rsocket, ReactiveJwtDecoder jwtDecoder) {
+        rsocket.authorizePayload(authorize -> authorize
+                        .setup().authenticated()
+                        .anyRequest().authenticated()
+                        .anyExchange().permitAll())
+                .jwt(jwt -> jwt.authenticationManager(new JwtReactiveAuthenticationManager(jwtDecoder)));
+        return rsocket.build();
+    }
+
+    /**
+     * Registered before Spring Security's interceptor, which therefore wraps this one and has already
+     * authenticated the setup frame when it runs.
+     */
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    RSocketServerCustomizer rsocketTokenExpiryCustomizer() {
+        return server -> server.interceptors(registry -> registry.forSocketAcceptor(
+                new TokenExpirySocketAcceptorInterceptor(Clock.systemUTC())));
+    }
+
+    /**
+     * Validates {@code @Validated} payloads like the HTTP controllers do.
+     */
+    @Bean
+    RSocketMessageHandlerCustomizer rsocketValidationCustomizer(Validator validator) {
+        return handler -> handler.setValidator(new SpringValidatorAdapter(validator));
+    }
+}
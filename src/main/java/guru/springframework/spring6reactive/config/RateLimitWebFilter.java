@@ -0,0 +1,190 @@
+package guru.springframework.spring6reactive.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits the request rate of each authenticated client with a token bucket, kept as the generic cell
+ * rate algorithm: a client's bucket is a single {@link AtomicLong} holding the time at which it will be
+ * full again, updated with compare-and-set. Clients are told apart by the token's {@code client_id}
+ * claim, or its subject when there is none. Every client may spend {@code capacity} tokens in a burst,
+ * refilled at {@code refillRate} tokens per second; a request costs the tokens of the first matching
+ * {@link RouteCost}, or {@code defaultCost}. Requests that would overdraw the bucket are answered with
+ * {@code 429 Too Many Requests} and a {@code Retry-After} header.
+ * <p>
+ * At most {@code maximumClients} buckets are kept. A bucket idle for as long as it takes to refill is
+ * full again and dropped, so expiry never hands a client more than its burst. Eviction by size does not
+ * look at the tokens left: with more active clients than {@code maximumClients}, an exhausted bucket
+ * can be dropped and its client starts over with a full one, so the limit only holds while the active
+ * clients fit. The client's
+ * {@code rate.limit.requests} counters are removed with its bucket, so a stream of short-lived clients
+ * does not grow the registry without bound.
+ */
+public class RateLimitWebFilter implements WebFilter {
+    private static final String CLIENT_ID_CLAIM = "client_id";
+
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final int defaultCost;
+    private final List<RouteCost> routeCosts;
+    private final LongSupplier nanoTime;
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, ClientBucket> buckets;
+
+    public RateLimitWebFilter(int capacity, double refillRate, long maximumClients, int defaultCost,
+                              List<RouteCost> routeCosts, LongSupplier nanoTime, MeterRegistry meterRegistry) {
+        if (refillRate <= 0) {
+            throw new IllegalArgumentException("Refill rate must be positive, was " + refillRate);
+        }
+        routeCosts.stream()
+                .mapToInt(RouteCost::cost)
+                .filter(cost -> cost > capacity)
+                .findAny()
+                .ifPresent(cost -> {
+                    throw new IllegalArgumentException("Route cost " + cost + " exceeds the capacity " + capacity);
+                });
+
+        this.nanosPerToken = Math.round(TimeUnit.SECONDS.toNanos(1) / refillRate);
+        this.burstNanos = capacity * this.nanosPerToken;
+        this.defaultCost = defaultCost;
+        this.routeCosts = List.copyOf(routeCosts);
+        this.nanoTime = nanoTime;
+        this.meterRegistry = meterRegistry;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumClients)
+                .expireAfterAccess(Duration.ofNanos(this.burstNanos))
+                .ticker(nanoTime::getAsLong)
+                // runs inside the eviction, before a new bucket can register the client's counters again
+                .evictionListener((String clientId, ClientBucket bucket, RemovalCause cause) -> {
+                    meterRegistry.remove(bucket.allowed());
+                    meterRegistry.remove(bucket.rejected());
+                })
+                .build();
+
+        Gauge.builder("rate.limit.clients", this.buckets, Cache::estimatedSize)
+                .description("Clients with a rate limit bucket")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                // unauthenticated requests are turned away by authorization, they have no client to charge
+                .filter(authentication -> authentication.isAuthenticated()
+                        && !(authentication instanceof AnonymousAuthenticationToken))
+                .map(authentication -> tryAcquire(clientId(authentication), cost(exchange.getRequest())))
+                .defaultIfEmpty(0L)
+                .flatMap(retryAfterNanos -> retryAfterNanos == 0
+                        ? chain.filter(exchange)
+                        : reject(exchange.getResponse(), retryAfterNanos));
+    }
+
+    /**
+     * Takes {@code cost} tokens from the client's bucket. Returns {@code 0} when they were taken, otherwise
+     * the time in nanoseconds until the bucket holds enough of them.
+     */
+    long tryAcquire(String clientId, int cost) {
+        ClientBucket bucket = this.buckets.get(clientId, this::newBucket);
+        long increment = cost * this.nanosPerToken;
+
+        while (true) {
+            long now = this.nanoTime.getAsLong();
+            long fullAt = bucket.fullAt().get();
+            long newFullAt = Math.max(fullAt, now) + increment;
+            long overdraw = newFullAt - now - this.burstNanos;
+            if (overdraw > 0) {
+                bucket.rejected().increment();
+                return overdraw;
+            }
+            if (bucket.fullAt().compareAndSet(fullAt, newFullAt)) {
+                bucket.allowed().increment();
+                return 0;
+            }
+        }
+    }
+
+    private int cost(ServerHttpRequest request) {
+        for (RouteCost routeCost : this.routeCosts) {
+            if (routeCost.matches(request)) {
+                return routeCost.cost();
+            }
+        }
+        return this.defaultCost;
+    }
+
+    private ClientBucket newBucket(String clientId) {
+        return new ClientBucket(new AtomicLong(Long.MIN_VALUE),
+                requestCounter(clientId, "allowed"),
+                requestCounter(clientId, "rejected"));
+    }
+
+    private Counter requestCounter(String clientId, String outcome) {
+        return Counter.builder("rate.limit.requests")
+                .description("Requests checked against the client's rate limit")
+                .tag("client", clientId)
+                .tag("outcome", outcome)
+                .register(this.meterRegistry);
+    }
+
+    private static String clientId(Authentication authentication) {
+        if (authentication instanceof JwtAuthenticationToken jwtAuthentication) {
+            String clientId = jwtAuthentication.getToken().getClaimAsString(CLIENT_ID_CLAIM);
+            if (clientId != null) {
+                return clientId;
+            }
+        }
+        return authentication.getName();
+    }
+
+    private static Mono<Void> reject(ServerHttpResponse response, long retryAfterNanos) {
+        long retryAfterSeconds = Math.max(1, (retryAfterNanos + TimeUnit.SECONDS.toNanos(1) - 1)
+                / TimeUnit.SECONDS.toNanos(1));
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        return response.setComplete();
+    }
+
+    /**
+     * The tokens a request with the given method and path pattern costs.
+     */
+    public record RouteCost(HttpMethod method, PathPattern pattern, int cost) {
+        public static RouteCost of(HttpMethod method, String pattern, int cost) {
+            return new RouteCost(method, PathPatternParser.defaultInstance.parse(pattern), cost);
+        }
+
+        boolean matches(ServerHttpRequest request) {
+            return this.method.equals(request.getMethod())
+                    && this.pattern.matches(request.getPath().pathWithinApplication());
+        }
+    }
+
+    private record ClientBucket(AtomicLong fullAt, Counter allowed, Counter rejected) {
+    }
+}
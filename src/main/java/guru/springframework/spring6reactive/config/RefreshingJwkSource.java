@@ -0,0 +1,128 @@
+package guru.springframework.spring6reactive.config;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jwt.SignedJWT;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.text.ParseException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * JWK source for the resource server. The key set is loaded as soon as the application starts and is
+ * reloaded in the background every {@code refreshInterval}, so requests never wait for the issuer.
+ * A token signed with a key that is not in the current set forces one extra reload, which covers key
+ * rotation between two scheduled refreshes. Such on-demand reloads happen at most once every
+ * {@code minOnDemandInterval}, so tokens with made-up key ids cannot make the service hammer the issuer;
+ * within that interval they find no key and are rejected, and a rotated key is picked up by the next
+ * scheduled refresh.
+ */
+@Slf4j
+public class RefreshingJwkSource implements Function<SignedJWT, Flux<JWK>>, SmartLifecycle {
+    private final WebClient webClient;
+    private final String jwkSetUri;
+    private final Duration refreshInterval;
+    private final Duration minOnDemandInterval;
+    private final Clock clock;
+    private final AtomicReference<JWKSet> jwkSet = new AtomicReference<>();
+    private final AtomicReference<Mono<JWKSet>> refreshing = new AtomicReference<>();
+    private final AtomicReference<Instant> lastOnDemandRefresh = new AtomicReference<>(Instant.MIN);
+    private volatile Disposable scheduledRefresh;
+
+    public RefreshingJwkSource(WebClient webClient, String jwkSetUri, Duration refreshInterval,
+                               Duration minOnDemandInterval, Clock clock) {
+        this.webClient = webClient;
+        this.jwkSetUri = jwkSetUri;
+        this.refreshInterval = refreshInterval;
+        this.minOnDemandInterval = minOnDemandInterval;
+        this.clock = clock;
+    }
+
+    @Override
+    public Flux<JWK> apply(SignedJWT jwt) {
+        JWKSelector selector = new JWKSelector(JWKMatcher.forJWSHeader(jwt.getHeader()));
+
+        return Mono.justOrEmpty(this.jwkSet.get())
+                .map(selector::select)
+                .filter(keys -> !keys.isEmpty())
+                .switchIfEmpty(Mono.defer(() -> refreshOnDemand().map(selector::select)))
+                .flatMapIterable(Function.identity());
+    }
+
+    /**
+     * Reloads the key set. Concurrent callers share the request that is already in flight.
+     */
+    public Mono<JWKSet> refresh() {
+        Mono<JWKSet> inFlight = this.refreshing.get();
+        if (inFlight != null) {
+            return inFlight;
+        }
+
+        Mono<JWKSet> reload = this.webClient.get()
+                .uri(this.jwkSetUri)
+                .retrieve()
+                .bodyToMono(String.class)
+                .map(RefreshingJwkSource::parse)
+                .doOnNext(this.jwkSet::set)
+                .doFinally(signal -> this.refreshing.set(null))
+                .cache();
+
+        return this.refreshing.compareAndSet(null, reload) ? reload : refresh();
+    }
+
+    private Mono<JWKSet> refreshOnDemand() {
+        Instant now = this.clock.instant();
+        Instant last = this.lastOnDemandRefresh.get();
+        if (now.isBefore(last.plus(this.minOnDemandInterval))
+                || !this.lastOnDemandRefresh.compareAndSet(last, now)) {
+            // too soon after the last one, only a reload that is already in flight is worth waiting for
+            return Mono.justOrEmpty(this.refreshing.get()).flatMap(Function.identity());
+        }
+        return refresh();
+    }
+
+    @Override
+    public void start() {
+        this.scheduledRefresh = Flux.interval(Duration.ZERO, this.refreshInterval)
+                .concatMap(tick -> refresh()
+                        .doOnNext(keys -> log.debug("Loaded {} keys from {}", keys.getKeys().size(), this.jwkSetUri))
+                        .onErrorResume(throwable -> {
+                            log.warn("Could not load JWK set from {}: {}", this.jwkSetUri, throwable.getMessage());
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    @Override
+    public void stop() {
+        Disposable refresh = this.scheduledRefresh;
+        if (refresh != null) {
+            refresh.dispose();
+        }
+        this.scheduledRefresh = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return this.scheduledRefresh != null;
+    }
+
+    private static JWKSet parse(String body) {
+        try {
+            return JWKSet.parse(body);
+        } catch (ParseException e) {
+            throw new IllegalStateException("Invalid JWK set: " + e.getMessage(), e);
+        }
+    }
+}
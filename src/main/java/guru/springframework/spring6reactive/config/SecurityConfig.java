@@ -1,22 +1,93 @@
 package guru.springframework.spring6reactive.config;
 
+import guru.springframework.spring6reactive.controllers.BeerController;
+import guru.springframework.spring6reactive.controllers.CustomerController;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.reactive.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.metrics.export.prometheus.PrometheusScrapeEndpoint;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.OAuth2ResourceServerProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.Customizer;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
 import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
 
 @Configuration
 @EnableWebFluxSecurity
 public class SecurityConfig {
     @Bean
-    SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+    SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http,
+                                                  @Value("${app.rate-limit.enabled}") boolean rateLimitEnabled,
+                                                  @Value("${app.rate-limit.capacity}") int capacity,
+                                                  @Value("${app.rate-limit.refill-rate}") double refillRate,
+                                                  @Value("${app.rate-limit.maximum-clients}") long maximumClients,
+                                                  @Value("${app.rate-limit.default-cost}") int defaultCost,
+                                                  @Value("${app.rate-limit.list-cost}") int listCost,
+                                                  MeterRegistry meterRegistry) {
         http.csrf((csrf) -> csrf.disable())
-                .authorizeExchange(authorize -> authorize.anyExchange()
-                                .authenticated())
+                .authorizeExchange(authorize -> authorize
+                        // liveness and readiness probes come from the kubelet and scrapes from Prometheus,
+                        // neither of which has a token
+                        .matchers(EndpointRequest.to(HealthEndpoint.class, PrometheusScrapeEndpoint.class))
+                        .permitAll()
+                        .anyExchange().authenticated())
                 .oauth2ResourceServer(resourceServer ->
                         resourceServer.jwt(Customizer.withDefaults()));
+        if (rateLimitEnabled) {
+            // not a bean of its own, WebFlux would also run it outside this chain, before the client is known
+            http.addFilterAfter(new RateLimitWebFilter(capacity, refillRate, maximumClients, defaultCost,
+                    routeCosts(listCost), System::nanoTime, meterRegistry), SecurityWebFiltersOrder.AUTHENTICATION);
+        }
         return http.build();
     }
+
+    @Bean
+    RefreshingJwkSource jwkSource(OAuth2ResourceServerProperties properties, WebClient.Builder webClientBuilder,
+                                  @Value("${app.security.jwk-set.refresh-interval}") Duration refreshInterval,
+                                  @Value("${app.security.jwk-set.min-on-demand-interval}")
+                                  Duration minOnDemandInterval) {
+        return new RefreshingJwkSource(webClientBuilder.build(), properties.getJwt().getJwkSetUri(), refreshInterval,
+                minOnDemandInterval, Clock.systemUTC());
+    }
+
+    @Bean
+    ReactiveJwtDecoder jwtDecoder(OAuth2ResourceServerProperties properties, RefreshingJwkSource jwkSource,
+                                  @Value("${app.security.jwt-cache.maximum-size}") long cacheSize,
+                                  @Value("${app.security.jwt-cache.max-ttl}") Duration cacheMaxTtl,
+                                  MeterRegistry meterRegistry) {
+        NimbusReactiveJwtDecoder decoder = NimbusReactiveJwtDecoder.withJwkSource(jwkSource).build();
+        String issuerUri = properties.getJwt().getIssuerUri();
+        if (StringUtils.hasText(issuerUri)) {
+            decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(issuerUri));
+        }
+
+        return new CachingReactiveJwtDecoder(decoder, cacheSize, cacheMaxTtl, Clock.systemUTC(), meterRegistry);
+    }
+
+    /**
+     * Listings and bulk reads touch many rows, point reads and single writes one.
+     */
+    private static List<RateLimitWebFilter.RouteCost> routeCosts(int listCost) {
+        return List.of(
+                RateLimitWebFilter.RouteCost.of(HttpMethod.GET, BeerController.BEER_PATH, listCost),
+                RateLimitWebFilter.RouteCost.of(HttpMethod.GET, BeerController.BEER_STATS_PATH, listCost),
+                RateLimitWebFilter.RouteCost.of(HttpMethod.POST, BeerController.BEER_LOOKUP_PATH, listCost),
+                RateLimitWebFilter.RouteCost.of(HttpMethod.POST, BeerController.BEER_BATCH_PATH, listCost),
+                RateLimitWebFilter.RouteCost.of(HttpMethod.GET, CustomerController.CUSTOMER_PATH, listCost),
+                RateLimitWebFilter.RouteCost.of(HttpMethod.POST, CustomerController.CUSTOMER_LOOKUP_PATH, listCost));
+    }
 }
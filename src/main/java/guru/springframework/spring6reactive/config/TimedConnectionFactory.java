@@ -0,0 +1,64 @@
+package guru.springframework.spring6reactive.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Wrapped;
+import reactor.core.publisher.Mono;
+
+/**
+ * Records how long callers wait for a pooled connection, tagged by whether they got one, failed or gave
+ * up waiting. The pool itself stays reachable through {@link Wrapped#unwrap()}, which is what the
+ * actuator uses to publish the {@code r2dbc.pool.*} gauges.
+ */
+class TimedConnectionFactory implements ConnectionFactory, Wrapped<ConnectionPool>, AutoCloseable {
+    private final ConnectionPool connectionPool;
+    private final Timer acquired;
+    private final Timer failed;
+    private final Timer cancelled;
+
+    TimedConnectionFactory(ConnectionPool connectionPool, MeterRegistry meterRegistry) {
+        this.connectionPool = connectionPool;
+        this.acquired = acquireTimer(meterRegistry, "success");
+        this.failed = acquireTimer(meterRegistry, "failure");
+        this.cancelled = acquireTimer(meterRegistry, "cancelled");
+    }
+
+    @Override
+    public Mono<Connection> create() {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start();
+
+            return this.connectionPool.create()
+                    .doOnSuccess(connection -> sample.stop(this.acquired))
+                    .doOnError(throwable -> sample.stop(this.failed))
+                    // callers that time out or go away while the pool is exhausted
+                    .doOnCancel(() -> sample.stop(this.cancelled));
+        });
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return this.connectionPool.getMetadata();
+    }
+
+    @Override
+    public ConnectionPool unwrap() {
+        return this.connectionPool;
+    }
+
+    @Override
+    public void close() {
+        this.connectionPool.dispose();
+    }
+
+    private static Timer acquireTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("r2dbc.pool.acquire")
+                .description("Time spent waiting for a pooled connection")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
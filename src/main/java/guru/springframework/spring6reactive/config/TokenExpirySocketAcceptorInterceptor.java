@@ -0,0 +1,48 @@
+package guru.springframework.spring6reactive.config;
+
+import io.rsocket.SocketAcceptor;
+import io.rsocket.plugins.SocketAcceptorInterceptor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Closes an RSocket connection when the token it was set up with expires. Runs inside Spring Security's
+ * acceptor, where the authentication of the setup frame is in the Reactor context.
+ */
+@Slf4j
+class TokenExpirySocketAcceptorInterceptor implements SocketAcceptorInterceptor {
+    private final Clock clock;
+
+    TokenExpirySocketAcceptorInterceptor(Clock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public SocketAcceptor apply(SocketAcceptor acceptor) {
+        return (setup, sendingSocket) -> acceptor.accept(setup, sendingSocket)
+                .flatMap(acceptingSocket -> ReactiveSecurityContextHolder.getContext()
+                        .map(SecurityContext::getAuthentication)
+                        .filter(JwtAuthenticationToken.class::isInstance)
+                        .mapNotNull(authentication -> ((JwtAuthenticationToken) authentication).getToken()
+                                .getExpiresAt())
+                        .doOnNext(expiresAt -> Mono.delay(untilExpiry(expiresAt))
+                                .takeUntilOther(sendingSocket.onClose())
+                                .subscribe(tick -> {
+                                    log.debug("Closing RSocket connection, its token expired at {}", expiresAt);
+                                    sendingSocket.dispose();
+                                }))
+                        .thenReturn(acceptingSocket));
+    }
+
+    private Duration untilExpiry(Instant expiresAt) {
+        Duration remaining = Duration.between(this.clock.instant(), expiresAt);
+        return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
+}
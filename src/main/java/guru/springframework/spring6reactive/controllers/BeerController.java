@@ -1,31 +1,62 @@
 package guru.springframework.spring6reactive.controllers;
 
+import guru.springframework.spring6reactive.model.BatchOperationType;
+import guru.springframework.spring6reactive.model.BeerBatchOperationDTO;
+import guru.springframework.spring6reactive.model.BeerBatchRequestDTO;
+import guru.springframework.spring6reactive.model.BeerBatchResultDTO;
 import guru.springframework.spring6reactive.model.BeerDTO;
+import guru.springframework.spring6reactive.model.BeerFilterDTO;
+import guru.springframework.spring6reactive.model.BeerStyleStatsDTO;
+import guru.springframework.spring6reactive.model.ChangeEventDTO;
+import guru.springframework.spring6reactive.model.LookupRequestDTO;
+import guru.springframework.spring6reactive.model.LookupResultDTO;
+import guru.springframework.spring6reactive.model.StockAdjustmentDTO;
+import guru.springframework.spring6reactive.model.StockEventDTO;
+import guru.springframework.spring6reactive.model.StockEventsResultDTO;
 import guru.springframework.spring6reactive.services.BeerService;
+import guru.springframework.spring6reactive.services.ChangeFeed;
+import guru.springframework.spring6reactive.services.StockEventBuffer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
 @RestController
 @RequiredArgsConstructor
 public class BeerController {
     public static final String BEER_PATH = "/api/v2/beer";
     public static final String BEER_PATH_ID = BEER_PATH + "/{beerId}";
+    public static final String BEER_BATCH_PATH = BEER_PATH + "/batch";
+    public static final String BEER_STATS_PATH = BEER_PATH + "/stats";
+    public static final String BEER_STOCK_PATH = BEER_PATH_ID + "/stock";
+    public static final String BEER_STOCK_EVENTS_PATH = BEER_PATH + "/stock-events";
+    public static final String BEER_CHANGES_PATH = BEER_PATH + "/changes";
+    public static final String BEER_LOOKUP_PATH = BEER_PATH + "/lookup";
+    public static final int STREAM_PREFETCH = 64;
+    public static final List<String> BEER_FIELDS = List.of("id", "beerName", "beerStyle", "upc", "quantityOnHand",
+            "price", "createdDate", "lastModifiedDate");
 
     private final BeerService beerService;
+    private final StockEventBuffer stockEventBuffer;
+    private final ChangeFeed<BeerDTO> beerChangeFeed;
 
     @DeleteMapping(BEER_PATH_ID)
     Mono<ResponseEntity<Void>> deleteById(@PathVariable("beerId") Integer beerId) {
-        return this.beerService
-                .getBeerById(beerId)
+        return this.beerService.deleteBeerById(beerId)
+                .filter(deleted -> deleted)
                 .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
-                .map(beerDto -> this.beerService.deleteBeerById(beerDto.getId()))
                 .thenReturn(ResponseEntity.noContent().build());
     }
 
@@ -37,6 +68,32 @@ public class BeerController {
                 .map(updatedDto -> ResponseEntity.ok().build());
     }
 
+    @PostMapping(BEER_STOCK_PATH)
+    Mono<BeerDTO> adjustStock(@PathVariable("beerId") Integer beerId,
+                              @Validated @RequestBody StockAdjustmentDTO stockAdjustmentDTO) {
+        return this.beerService.adjustStock(beerId, stockAdjustmentDTO.getDelta())
+                // nothing updated, tell a missing beer apart from one without enough stock
+                .switchIfEmpty(Mono.defer(() -> this.beerService.getBeerById(beerId)
+                        .flatMap(beerDTO -> Mono.<BeerDTO>error(
+                                new ResponseStatusException(HttpStatus.CONFLICT, "Not enough stock")))
+                        .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))));
+    }
+
+    /**
+     * Buffers the events for the next flush. {@code accepted} counts the events taken into the buffer;
+     * events for beers that do not exist are only found out by the flush, which drops them.
+     */
+    @PostMapping(value = BEER_STOCK_EVENTS_PATH, consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    Mono<StockEventsResultDTO> ingestStockEvents(@Validated @RequestBody Flux<StockEventDTO> events) {
+        // one event at a time, so a full buffer stops the request body from being read any further
+        return events
+                .concatMap(event -> this.stockEventBuffer.add(event.getBeerId(), event.getDelta())
+                        .thenReturn(event))
+                .count()
+                .map(StockEventsResultDTO::new);
+    }
+
     @PutMapping(BEER_PATH_ID)
     Mono<ResponseEntity<Void>> updateExistingBeer(@PathVariable("beerId") Integer beerId,
                                                   @Validated @RequestBody BeerDTO beerDTO) {
@@ -53,14 +110,129 @@ public class BeerController {
                         .build().toUri()).build());
     }
 
+    @PostMapping(BEER_BATCH_PATH)
+    Mono<List<BeerBatchResultDTO>> executeBatch(@Validated @RequestBody BeerBatchRequestDTO batchRequest) {
+        batchRequest.getOperations().forEach(BeerController::checkBatchOperation);
+
+        // collected so the response is only written once the transaction has committed
+        return this.beerService.executeBatch(batchRequest.getOperations())
+                .collectList();
+    }
+
     @GetMapping(BEER_PATH_ID)
-    Mono<BeerDTO> getBeerById(@PathVariable("beerId") Integer beerId) {
+    Mono<ResponseEntity<BeerDTO>> getBeerById(@PathVariable("beerId") Integer beerId, ServerWebExchange exchange) {
         return this.beerService.getBeerById(beerId)
-                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)));
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+                .map(beerDTO -> ConditionalRequests
+                        .ok(ConditionalRequests.eTag(beerDTO.getId(), beerDTO.getLastModifiedDate(), exchange),
+                                beerDTO.getLastModifiedDate())
+                        .body(beerDTO));
     }
 
     @GetMapping(BEER_PATH)
-    Flux<BeerDTO> listBeers() {
-        return this.beerService.listBeers();
+    Mono<ResponseEntity<List<BeerDTO>>> listBeers(BeerFilterDTO filter,
+                                                  @RequestParam(value = "after", required = false) Integer after,
+                                                  @RequestParam(value = "limit", required = false) Integer limit,
+                                                  ServerWebExchange exchange) {
+        int pageSize = CursorPaging.pageSize(limit);
+
+        return this.beerService.getBeerTableVersion()
+                .flatMap(tableVersion -> {
+                    String eTag = ConditionalRequests.eTag(tableVersion, exchange);
+                    if (ConditionalRequests.notModified(exchange, eTag, tableVersion.getLastModified())) {
+                        return Mono.empty();
+                    }
+
+                    return this.beerService.listBeers(filter, after, pageSize + 1)
+                            .collectList()
+                            .map(beers -> CursorPaging.toResponse(
+                                    ConditionalRequests.ok(eTag, tableVersion.getLastModified()),
+                                    beers, pageSize, BeerDTO::getId));
+                });
+    }
+
+    @GetMapping(value = BEER_PATH, params = Lookups.IDS_PARAM)
+    Mono<LookupResultDTO<BeerDTO>> getBeersByIds(@RequestParam(Lookups.IDS_PARAM) List<Integer> beerIds) {
+        List<Integer> ids = Lookups.distinctIds(beerIds);
+        return this.beerService.getBeersByIds(ids)
+                .map(beers -> Lookups.toResult(ids, beers));
+    }
+
+    @PostMapping(BEER_LOOKUP_PATH)
+    Mono<LookupResultDTO<BeerDTO>> lookupBeers(@Validated @RequestBody LookupRequestDTO lookupRequest) {
+        return getBeersByIds(lookupRequest.getIds());
+    }
+
+    @GetMapping(value = BEER_PATH, params = {SparseFieldsets.FIELDS_PARAM, "!" + Lookups.IDS_PARAM})
+    Mono<ResponseEntity<List<Map<String, Object>>>> listBeerFields(
+            BeerFilterDTO filter,
+            @RequestParam(SparseFieldsets.FIELDS_PARAM) String fields,
+            @RequestParam(value = "after", required = false) Integer after,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            ServerWebExchange exchange) {
+        List<String> selectedFields = SparseFieldsets.parse(fields, BEER_FIELDS);
+        int pageSize = CursorPaging.pageSize(limit);
+
+        return this.beerService.getBeerTableVersion()
+                .flatMap(tableVersion -> {
+                    String eTag = SparseFieldsets.eTag(ConditionalRequests.eTag(tableVersion, exchange), selectedFields);
+                    if (ConditionalRequests.notModified(exchange, eTag, tableVersion.getLastModified())) {
+                        return Mono.empty();
+                    }
+
+                    return this.beerService.listBeerFields(filter, after, pageSize + 1, selectedFields)
+                            .collectList()
+                            .map(beers -> CursorPaging.toResponse(
+                                    ConditionalRequests.ok(eTag, tableVersion.getLastModified()),
+                                    beers, pageSize, beer -> (Integer) beer.get(SparseFieldsets.ID_FIELD)));
+                });
+    }
+
+    @GetMapping(BEER_STATS_PATH)
+    Flux<BeerStyleStatsDTO> getBeerStyleStats(
+            @RequestParam(value = "lowStockThreshold", required = false) Integer lowStockThreshold) {
+        if (lowStockThreshold != null && lowStockThreshold < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "lowStockThreshold must not be negative");
+        }
+        return this.beerService.getBeerStyleStats(lowStockThreshold);
+    }
+
+    @GetMapping(value = BEER_PATH, produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    Flux<BeerDTO> streamBeers() {
+        // rows are written as they arrive, R2DBC is only asked for more once the client drained the prefetch
+        return this.beerService.listBeers()
+                .limitRate(STREAM_PREFETCH);
+    }
+
+    /**
+     * Changes to beers as server-sent events, optionally only those of one beer or one style. Changes that
+     * only carry the id of the beer, from batches and stock events, are sent to every style filter.
+     */
+    @GetMapping(value = BEER_CHANGES_PATH, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    Flux<ServerSentEvent<ChangeEventDTO<BeerDTO>>> streamBeerChanges(
+            @RequestParam(value = "id", required = false) Integer beerId,
+            @RequestParam(value = "style", required = false) String beerStyle,
+            @RequestHeader(value = ChangeStreams.LAST_EVENT_ID_HEADER, required = false) String lastEventId) {
+        return ChangeStreams.toServerSentEvents(this.beerChangeFeed, ChangeStreams.lastEventId(lastEventId),
+                event -> (beerId == null || event.getId() == null || beerId.equals(event.getId()))
+                        && (beerStyle == null || event.getData() == null
+                        || Objects.equals(beerStyle, event.getData().getBeerStyle())));
+    }
+
+    @GetMapping(value = BEER_PATH, params = SparseFieldsets.FIELDS_PARAM,
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    Flux<Map<String, Object>> streamBeerFields(@RequestParam(SparseFieldsets.FIELDS_PARAM) String fields) {
+        return this.beerService.listBeerFields(SparseFieldsets.parse(fields, BEER_FIELDS))
+                .limitRate(STREAM_PREFETCH);
+    }
+
+    private static void checkBatchOperation(BeerBatchOperationDTO operation) {
+        boolean needsId = operation.getOperation() != BatchOperationType.CREATE;
+        boolean needsBeer = operation.getOperation() != BatchOperationType.DELETE;
+
+        if ((needsId && operation.getId() == null) || (needsBeer && operation.getBeer() == null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    operation.getOperation() + " operation is missing its id or beer");
+        }
     }
 }
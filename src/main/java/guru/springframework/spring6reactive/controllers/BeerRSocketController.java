@@ -0,0 +1,55 @@
+package guru.springframework.spring6reactive.controllers;
+
+import guru.springframework.spring6reactive.model.BeerDTO;
+import guru.springframework.spring6reactive.services.BeerService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Controller;
+import org.springframework.validation.annotation.Validated;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link BeerService} over RSocket. Point reads and deletes are request-response, listing is a
+ * request-stream that follows the caller's demand, and upserts are a channel: every beer sent is saved in
+ * order and answered with the saved beer. A beer without an id, or with an id that does not exist, is
+ * created with a new id. A missing beer is answered with an empty response instead of an error.
+ */
+@Controller
+@RequiredArgsConstructor
+public class BeerRSocketController {
+    public static final String BEER_ROUTE = "beer.get";
+    public static final String BEER_LIST_ROUTE = "beer.list";
+    public static final String BEER_UPSERT_ROUTE = "beer.upsert";
+    public static final String BEER_DELETE_ROUTE = "beer.delete";
+
+    private final BeerService beerService;
+
+    @MessageMapping(BEER_ROUTE)
+    Mono<BeerDTO> getBeerById(Integer beerId) {
+        return this.beerService.getBeerById(beerId);
+    }
+
+    @MessageMapping(BEER_LIST_ROUTE)
+    Flux<BeerDTO> listBeers() {
+        return this.beerService.listBeers();
+    }
+
+    @MessageMapping(BEER_UPSERT_ROUTE)
+    Flux<BeerDTO> upsertBeers(@Payload @Validated Flux<BeerDTO> beers) {
+        return beers.concatMap(beerDTO -> beerDTO.getId() == null
+                ? this.beerService.saveNewBeer(beerDTO)
+                : this.beerService.updateBeer(beerDTO.getId(), beerDTO)
+                        .switchIfEmpty(Mono.defer(() -> {
+                            // the unknown id is not kept, the row gets the next generated one
+                            beerDTO.setId(null);
+                            return this.beerService.saveNewBeer(beerDTO);
+                        })));
+    }
+
+    @MessageMapping(BEER_DELETE_ROUTE)
+    Mono<Boolean> deleteById(Integer beerId) {
+        return this.beerService.deleteBeerById(beerId);
+    }
+}
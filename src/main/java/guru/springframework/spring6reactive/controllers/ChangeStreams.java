@@ -0,0 +1,52 @@
+package guru.springframework.spring6reactive.controllers;
+
+import guru.springframework.spring6reactive.model.ChangeEventDTO;
+import guru.springframework.spring6reactive.services.ChangeFeed;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+
+import java.util.function.Predicate;
+
+/**
+ * Server-sent change streams shared by the change endpoints. Every event carries its
+ * {@link ChangeFeed.EventId} as the SSE id, so browsers and other SSE clients resume from the right place by sending it back in the
+ * {@value #LAST_EVENT_ID_HEADER} header when they reconnect. A comment line is written every heartbeat
+ * interval while nothing changes, which keeps proxies from closing an idle connection and lets the
+ * server notice clients that went away.
+ */
+final class ChangeStreams {
+    public static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
+    private ChangeStreams() {
+    }
+
+    static ChangeFeed.EventId lastEventId(String header) {
+        if (header == null) {
+            return null;
+        }
+        try {
+            return ChangeFeed.EventId.parse(header);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    LAST_EVENT_ID_HEADER + " must be an id sent with an earlier event");
+        }
+    }
+
+    static <T> Flux<ServerSentEvent<ChangeEventDTO<T>>> toServerSentEvents(ChangeFeed<T> feed,
+                                                                          ChangeFeed.EventId lastEventId,
+                                                                          Predicate<ChangeEventDTO<T>> filter) {
+        Flux<ServerSentEvent<ChangeEventDTO<T>>> changes = feed.subscribe(lastEventId, filter)
+                .map(event -> ServerSentEvent.builder(event)
+                        .id(feed.eventId(event).toString())
+                        .event(event.getType().name())
+                        .build());
+        Flux<ServerSentEvent<ChangeEventDTO<T>>> heartbeats = Flux.interval(feed.getHeartbeatInterval())
+                .map(tick -> ServerSentEvent.<ChangeEventDTO<T>>builder()
+                        .comment("heartbeat")
+                        .build());
+
+        return Flux.merge(changes, heartbeats);
+    }
+}
@@ -0,0 +1,98 @@
+package guru.springframework.spring6reactive.controllers;
+
+import guru.springframework.spring6reactive.config.CodecConfig;
+import guru.springframework.spring6reactive.model.TableVersionDTO;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.reactive.accept.HeaderContentTypeResolver;
+import org.springframework.web.reactive.accept.RequestedContentTypeResolver;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validators for conditional GETs. A single row is identified by its id and last modification
+ * time, a list by the row count and newest modification time of the whole table, which the
+ * database answers from a single aggregate without reading the rows themselves.
+ * <p>
+ * The same URL is written as JSON, CBOR or Smile depending on {@code Accept}, so every validator
+ * names the format it was computed for and every response varies by {@code Accept}. A shared cache
+ * then keeps the formats apart and never revalidates one with the validator of another.
+ */
+final class ConditionalRequests {
+    // in the order the codecs are registered, see CodecConfig
+    private static final List<MediaType> FORMATS = List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR,
+            CodecConfig.APPLICATION_SMILE);
+    private static final RequestedContentTypeResolver ACCEPTED_TYPES = new HeaderContentTypeResolver();
+
+    private ConditionalRequests() {
+    }
+
+    static String eTag(Integer id, LocalDateTime lastModified, ServerWebExchange exchange) {
+        return id + "-" + epochNanos(lastModified) + "-" + format(exchange);
+    }
+
+    static String eTag(TableVersionDTO tableVersion, ServerWebExchange exchange) {
+        return tableVersion.getRowCount() + "-" + epochNanos(tableVersion.getLastModified()) + "-" + format(exchange);
+    }
+
+    /**
+     * 200 response carrying the validators. For GET requests the framework compares them against
+     * {@code If-None-Match}/{@code If-Modified-Since} and turns the response into a 304 on a match.
+     */
+    static ResponseEntity.BodyBuilder ok(String eTag, LocalDateTime lastModified) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().eTag(eTag).varyBy(HttpHeaders.ACCEPT);
+        if (lastModified != null) {
+            builder.lastModified(toInstant(lastModified));
+        }
+        return builder;
+    }
+
+    /**
+     * Checks the validators before any rows are read. When this returns {@code true} the exchange
+     * already carries the 304 status and headers, and the handler should complete without a body.
+     */
+    static boolean notModified(ServerWebExchange exchange, String eTag, LocalDateTime lastModified) {
+        boolean notModified = lastModified == null
+                ? exchange.checkNotModified(eTag)
+                : exchange.checkNotModified(eTag, toInstant(lastModified));
+        if (notModified) {
+            exchange.getResponse().getHeaders().setVary(List.of(HttpHeaders.ACCEPT));
+        }
+        return notModified;
+    }
+
+    /**
+     * The subtype of the format the response will be written in, the first one the client accepts.
+     */
+    private static String format(ServerWebExchange exchange) {
+        for (MediaType accepted : ACCEPTED_TYPES.resolveMediaTypes(exchange)) {
+            for (MediaType format : FORMATS) {
+                if (accepted.isCompatibleWith(format)) {
+                    return format.getSubtype();
+                }
+            }
+        }
+        return MediaType.APPLICATION_JSON.getSubtype();
+    }
+
+    private static Instant toInstant(LocalDateTime lastModified) {
+        return lastModified.atZone(ZoneId.systemDefault()).toInstant();
+    }
+
+    /**
+     * At the full precision of the column, two writes within the same millisecond still change the validator.
+     */
+    private static long epochNanos(LocalDateTime lastModified) {
+        if (lastModified == null) {
+            return 0;
+        }
+        Instant instant = toInstant(lastModified);
+        return TimeUnit.SECONDS.toNanos(instant.getEpochSecond()) + instant.getNano();
+    }
+}
@@ -0,0 +1,45 @@
+package guru.springframework.spring6reactive.controllers;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Keyset (cursor) paging shared by the list endpoints. Pages are read with
+ * {@code WHERE id > :after ORDER BY id LIMIT :limit}, so the cost of a page does not
+ * depend on how deep the client has paged. One extra row is fetched to find out whether
+ * a next page exists; its cursor is returned in the {@value #NEXT_CURSOR_HEADER} header.
+ */
+final class CursorPaging {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final int DEFAULT_PAGE_SIZE = 25;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private CursorPaging() {
+    }
+
+    static int pageSize(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (limit < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be positive");
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    static <T> ResponseEntity<List<T>> toResponse(ResponseEntity.BodyBuilder response, List<T> rows, int pageSize,
+                                                  Function<T, Integer> idExtractor) {
+        if (rows.size() <= pageSize) {
+            return response.body(rows);
+        }
+
+        List<T> page = rows.subList(0, pageSize);
+        return response
+                .header(NEXT_CURSOR_HEADER, String.valueOf(idExtractor.apply(page.get(pageSize - 1))))
+                .body(page);
+    }
+}
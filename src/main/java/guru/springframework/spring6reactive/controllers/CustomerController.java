@@ -1,31 +1,46 @@
 package guru.springframework.spring6reactive.controllers;
 
+import guru.springframework.spring6reactive.model.ChangeEventDTO;
 import guru.springframework.spring6reactive.model.CustomerDTO;
+import guru.springframework.spring6reactive.model.LookupRequestDTO;
+import guru.springframework.spring6reactive.model.LookupResultDTO;
+import guru.springframework.spring6reactive.services.ChangeFeed;
 import guru.springframework.spring6reactive.services.CustomerService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+import java.util.Map;
+
 @RestController
 @RequiredArgsConstructor
 public class CustomerController {
     public static final String CUSTOMER_PATH = "/api/v2/customer";
     public static final String CUSTOMER_PATH_ID = CUSTOMER_PATH + "/{customerId}";
+    public static final String CUSTOMER_CHANGES_PATH = CUSTOMER_PATH + "/changes";
+    public static final String CUSTOMER_LOOKUP_PATH = CUSTOMER_PATH + "/lookup";
+    public static final int STREAM_PREFETCH = 64;
+    public static final List<String> CUSTOMER_FIELDS = List.of("id", "customerName", "createdDate",
+            "lastModifiedDate");
 
     private final CustomerService customerService;
+    private final ChangeFeed<CustomerDTO> customerChangeFeed;
 
     @DeleteMapping(CUSTOMER_PATH_ID)
     public Mono<ResponseEntity<Void>> deleteById(@PathVariable("customerId") Integer customerId) {
-        return this.customerService
-                .getCustomerById(customerId)
+        return this.customerService.deleteCustomerById(customerId)
+                .filter(deleted -> deleted)
                 .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
-                .map(customerDto -> this.customerService.deleteCustomerById(customerDto.getId()))
                 .thenReturn(ResponseEntity.noContent().build());
     }
 
@@ -63,13 +78,95 @@ public class CustomerController {
     }
 
     @GetMapping(CUSTOMER_PATH_ID)
-    public Mono<CustomerDTO> getCustomerById(@PathVariable("customerId") Integer customerId) {
+    public Mono<ResponseEntity<CustomerDTO>> getCustomerById(@PathVariable("customerId") Integer customerId,
+                                                             ServerWebExchange exchange) {
         return this.customerService.getCustomerById(customerId)
-                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)));
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)))
+                .map(customerDTO -> ConditionalRequests
+                        .ok(ConditionalRequests.eTag(customerDTO.getId(), customerDTO.getLastModifiedDate(), exchange),
+                                customerDTO.getLastModifiedDate())
+                        .body(customerDTO));
     }
 
     @GetMapping(CUSTOMER_PATH)
-    public Flux<CustomerDTO> listCustomers() {
-        return this.customerService.listCustomers();
+    public Mono<ResponseEntity<List<CustomerDTO>>> listCustomers(
+            @RequestParam(value = "after", required = false) Integer after,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            ServerWebExchange exchange) {
+        int pageSize = CursorPaging.pageSize(limit);
+
+        return this.customerService.getCustomerTableVersion()
+                .flatMap(tableVersion -> {
+                    String eTag = ConditionalRequests.eTag(tableVersion, exchange);
+                    if (ConditionalRequests.notModified(exchange, eTag, tableVersion.getLastModified())) {
+                        return Mono.empty();
+                    }
+
+                    return this.customerService.listCustomers(after, pageSize + 1)
+                            .collectList()
+                            .map(customers -> CursorPaging.toResponse(
+                                    ConditionalRequests.ok(eTag, tableVersion.getLastModified()),
+                                    customers, pageSize, CustomerDTO::getId));
+                });
+    }
+
+    @GetMapping(value = CUSTOMER_PATH, params = Lookups.IDS_PARAM)
+    public Mono<LookupResultDTO<CustomerDTO>> getCustomersByIds(
+            @RequestParam(Lookups.IDS_PARAM) List<Integer> customerIds) {
+        List<Integer> ids = Lookups.distinctIds(customerIds);
+        return this.customerService.getCustomersByIds(ids)
+                .map(customers -> Lookups.toResult(ids, customers));
+    }
+
+    @PostMapping(CUSTOMER_LOOKUP_PATH)
+    public Mono<LookupResultDTO<CustomerDTO>> lookupCustomers(@Validated @RequestBody LookupRequestDTO lookupRequest) {
+        return getCustomersByIds(lookupRequest.getIds());
+    }
+
+    @GetMapping(value = CUSTOMER_PATH, params = {SparseFieldsets.FIELDS_PARAM, "!" + Lookups.IDS_PARAM})
+    public Mono<ResponseEntity<List<Map<String, Object>>>> listCustomerFields(
+            @RequestParam(SparseFieldsets.FIELDS_PARAM) String fields,
+            @RequestParam(value = "after", required = false) Integer after,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            ServerWebExchange exchange) {
+        List<String> selectedFields = SparseFieldsets.parse(fields, CUSTOMER_FIELDS);
+        int pageSize = CursorPaging.pageSize(limit);
+
+        return this.customerService.getCustomerTableVersion()
+                .flatMap(tableVersion -> {
+                    String eTag = SparseFieldsets.eTag(ConditionalRequests.eTag(tableVersion, exchange), selectedFields);
+                    if (ConditionalRequests.notModified(exchange, eTag, tableVersion.getLastModified())) {
+                        return Mono.empty();
+                    }
+
+                    return this.customerService.listCustomerFields(after, pageSize + 1, selectedFields)
+                            .collectList()
+                            .map(customers -> CursorPaging.toResponse(
+                                    ConditionalRequests.ok(eTag, tableVersion.getLastModified()),
+                                    customers, pageSize,
+                                    customer -> (Integer) customer.get(SparseFieldsets.ID_FIELD)));
+                });
+    }
+
+    @GetMapping(value = CUSTOMER_PATH, produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<CustomerDTO> streamCustomers() {
+        // rows are written as they arrive, R2DBC is only asked for more once the client drained the prefetch
+        return this.customerService.listCustomers()
+                .limitRate(STREAM_PREFETCH);
+    }
+
+    @GetMapping(value = CUSTOMER_PATH, params = SparseFieldsets.FIELDS_PARAM,
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<Map<String, Object>> streamCustomerFields(@RequestParam(SparseFieldsets.FIELDS_PARAM) String fields) {
+        return this.customerService.listCustomerFields(SparseFieldsets.parse(fields, CUSTOMER_FIELDS))
+                .limitRate(STREAM_PREFETCH);
+    }
+
+    @GetMapping(value = CUSTOMER_CHANGES_PATH, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<ChangeEventDTO<CustomerDTO>>> streamCustomerChanges(
+            @RequestParam(value = "id", required = false) Integer customerId,
+            @RequestHeader(value = ChangeStreams.LAST_EVENT_ID_HEADER, required = false) String lastEventId) {
+        return ChangeStreams.toServerSentEvents(this.customerChangeFeed, ChangeStreams.lastEventId(lastEventId),
+                event -> customerId == null || event.getId() == null || customerId.equals(event.getId()));
     }
 }
@@ -0,0 +1,52 @@
+package guru.springframework.spring6reactive.controllers;
+
+import guru.springframework.spring6reactive.model.CustomerDTO;
+import guru.springframework.spring6reactive.services.CustomerService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Controller;
+import org.springframework.validation.annotation.Validated;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link CustomerService} over RSocket, with the same interaction models as {@link BeerRSocketController}.
+ */
+@Controller
+@RequiredArgsConstructor
+public class CustomerRSocketController {
+    public static final String CUSTOMER_ROUTE = "customer.get";
+    public static final String CUSTOMER_LIST_ROUTE = "customer.list";
+    public static final String CUSTOMER_UPSERT_ROUTE = "customer.upsert";
+    public static final String CUSTOMER_DELETE_ROUTE = "customer.delete";
+
+    private final CustomerService customerService;
+
+    @MessageMapping(CUSTOMER_ROUTE)
+    Mono<CustomerDTO> getCustomerById(Integer customerId) {
+        return this.customerService.getCustomerById(customerId);
+    }
+
+    @MessageMapping(CUSTOMER_LIST_ROUTE)
+    Flux<CustomerDTO> listCustomers() {
+        return this.customerService.listCustomers();
+    }
+
+    @MessageMapping(CUSTOMER_UPSERT_ROUTE)
+    Flux<CustomerDTO> upsertCustomers(@Payload @Validated Flux<CustomerDTO> customers) {
+        return customers.concatMap(customerDTO -> customerDTO.getId() == null
+                ? this.customerService.saveNewCustomer(customerDTO)
+                : this.customerService.updateCustomer(customerDTO.getId(), customerDTO)
+                        .switchIfEmpty(Mono.defer(() -> {
+                            // the unknown id is not kept, the row gets the next generated one
+                            customerDTO.setId(null);
+                            return this.customerService.saveNewCustomer(customerDTO);
+                        })));
+    }
+
+    @MessageMapping(CUSTOMER_DELETE_ROUTE)
+    Mono<Boolean> deleteById(Integer customerId) {
+        return this.customerService.deleteCustomerById(customerId);
+    }
+}
@@ -0,0 +1,28 @@
+package guru.springframework.spring6reactive.controllers;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@Slf4j
+@RestControllerAdvice
+public class DataAccessExceptionHandler {
+    static final String RETRY_AFTER_SECONDS = "1";
+
+    /**
+     * No connection could be obtained, most likely because the pool is exhausted and the acquire
+     * timeout elapsed. Answer right away so clients back off instead of piling up more requests.
+     */
+    @ExceptionHandler(DataAccessResourceFailureException.class)
+    ResponseEntity<Void> handleResourceFailure(DataAccessResourceFailureException exception) {
+        log.warn("Database unavailable: {}", exception.getMostSpecificCause().getMessage());
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .build();
+    }
+}
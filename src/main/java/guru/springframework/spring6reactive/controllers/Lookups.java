@@ -0,0 +1,50 @@
+package guru.springframework.spring6reactive.controllers;
+
+import guru.springframework.spring6reactive.model.LookupRequestDTO;
+import guru.springframework.spring6reactive.model.LookupResultDTO;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Multi-gets shared by {@code GET ?ids=} and {@code POST /lookup}. Duplicate ids are looked up once,
+ * and the result reports every requested id either as found or as missing.
+ */
+final class Lookups {
+    public static final String IDS_PARAM = "ids";
+
+    private Lookups() {
+    }
+
+    static List<Integer> distinctIds(List<Integer> ids) {
+        List<Integer> distinct = List.copyOf(new LinkedHashSet<>(ids.stream().filter(Objects::nonNull).toList()));
+        if (distinct.isEmpty() || distinct.size() > LookupRequestDTO.MAX_IDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Between 1 and " + LookupRequestDTO.MAX_IDS + " ids can be looked up at once");
+        }
+        return distinct;
+    }
+
+    static <T> LookupResultDTO<T> toResult(List<Integer> ids, Map<Integer, T> rows) {
+        Map<Integer, T> found = new LinkedHashMap<>();
+        List<Integer> missing = ids.stream()
+                .filter(id -> {
+                    T row = rows.get(id);
+                    if (row != null) {
+                        found.put(id, row);
+                    }
+                    return row == null;
+                })
+                .toList();
+
+        return LookupResultDTO.<T>builder()
+                .found(found)
+                .missing(missing)
+                .build();
+    }
+}
@@ -0,0 +1,47 @@
+package guru.springframework.spring6reactive.controllers;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Sparse fieldsets requested with {@code ?fields=id,beerName,price}. Only the listed properties are
+ * selected from the database and written to the response. The id is always included, it is the
+ * paging cursor and what clients correlate rows with.
+ */
+final class SparseFieldsets {
+    public static final String FIELDS_PARAM = "fields";
+    public static final String ID_FIELD = "id";
+
+    private SparseFieldsets() {
+    }
+
+    static List<String> parse(String fields, List<String> availableFields) {
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add(ID_FIELD);
+
+        for (String field : StringUtils.commaDelimitedListToStringArray(fields)) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!availableFields.contains(name)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown field " + name
+                        + ", expected any of " + String.join(",", availableFields));
+            }
+            selected.add(name);
+        }
+        return List.copyOf(selected);
+    }
+
+    /**
+     * The representation depends on the fields, so does the validator.
+     */
+    static String eTag(String eTag, List<String> fields) {
+        return eTag + "-" + Integer.toHexString(String.join(",", fields).hashCode());
+    }
+}
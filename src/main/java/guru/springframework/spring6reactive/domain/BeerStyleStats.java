@@ -0,0 +1,25 @@
+package guru.springframework.spring6reactive.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * One row of the per-style inventory aggregate.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BeerStyleStats {
+    private String beerStyle;
+    private Long beerCount;
+    private Long totalStock;
+    private BigDecimal stockValue;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private BigDecimal avgPrice;
+}
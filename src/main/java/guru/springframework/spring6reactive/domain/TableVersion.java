@@ -0,0 +1,20 @@
+package guru.springframework.spring6reactive.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cheap validator for a whole table: it changes whenever a row is inserted, updated or deleted.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TableVersion {
+    private Long rowCount;
+    private LocalDateTime lastModified;
+}
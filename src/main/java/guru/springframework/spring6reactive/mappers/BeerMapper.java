@@ -1,11 +1,14 @@
 package guru.springframework.spring6reactive.mappers;
 
 import guru.springframework.spring6reactive.domain.Beer;
+import guru.springframework.spring6reactive.domain.BeerStyleStats;
 import guru.springframework.spring6reactive.model.BeerDTO;
+import guru.springframework.spring6reactive.model.BeerStyleStatsDTO;
 import org.mapstruct.Mapper;
 
 @Mapper
 public interface BeerMapper {
     Beer beerDTOToBeer(BeerDTO dto);
     BeerDTO beerToBeerDTO(Beer beer);
+    BeerStyleStatsDTO beerStyleStatsToBeerStyleStatsDTO(BeerStyleStats stats);
 }
@@ -0,0 +1,10 @@
+package guru.springframework.spring6reactive.mappers;
+
+import guru.springframework.spring6reactive.domain.TableVersion;
+import guru.springframework.spring6reactive.model.TableVersionDTO;
+import org.mapstruct.Mapper;
+
+@Mapper
+public interface TableVersionMapper {
+    TableVersionDTO tableVersionToTableVersionDTO(TableVersion tableVersion);
+}
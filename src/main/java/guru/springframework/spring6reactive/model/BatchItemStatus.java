@@ -0,0 +1,5 @@
+package guru.springframework.spring6reactive.model;
+
+public enum BatchItemStatus {
+    CREATED, UPDATED, DELETED, NOT_FOUND
+}
@@ -0,0 +1,5 @@
+package guru.springframework.spring6reactive.model;
+
+public enum BatchOperationType {
+    CREATE, UPDATE, DELETE
+}
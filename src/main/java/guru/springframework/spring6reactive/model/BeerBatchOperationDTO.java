@@ -0,0 +1,20 @@
+package guru.springframework.spring6reactive.model;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BeerBatchOperationDTO {
+    @NotNull
+    private BatchOperationType operation;
+    private Integer id;
+    @Valid
+    private BeerDTO beer;
+}
@@ -0,0 +1,24 @@
+package guru.springframework.spring6reactive.model;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BeerBatchRequestDTO {
+    public static final int MAX_OPERATIONS = 1000;
+
+    @NotEmpty
+    @Size(max = MAX_OPERATIONS)
+    private List<@Valid @NotNull BeerBatchOperationDTO> operations;
+}
@@ -0,0 +1,17 @@
+package guru.springframework.spring6reactive.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BeerBatchResultDTO {
+    private int index;
+    private BatchOperationType operation;
+    private Integer id;
+    private BatchItemStatus status;
+}
@@ -0,0 +1,33 @@
+package guru.springframework.spring6reactive.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BeerFilterDTO {
+    private String beerName;
+    private NameMatch nameMatch;
+    private String beerStyle;
+    private String upc;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private Boolean inStock;
+
+    public enum NameMatch {
+        /**
+         * Name starts with the given text, served by the beer_name index.
+         */
+        PREFIX,
+        /**
+         * Name contains the given text anywhere, needs a scan of the table.
+         */
+        CONTAINS
+    }
+}
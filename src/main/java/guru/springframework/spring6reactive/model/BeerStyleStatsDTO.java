@@ -0,0 +1,22 @@
+package guru.springframework.spring6reactive.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BeerStyleStatsDTO {
+    private String beerStyle;
+    private Long beerCount;
+    private Long totalStock;
+    private BigDecimal stockValue;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private BigDecimal avgPrice;
+}
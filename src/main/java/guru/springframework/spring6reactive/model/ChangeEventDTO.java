@@ -0,0 +1,20 @@
+package guru.springframework.spring6reactive.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChangeEventDTO<T> {
+    private long sequence;
+    private ChangeType type;
+    private Integer id;
+    /**
+     * State after the change, or the deleted row. Missing when only the id of the changed row is known.
+     */
+    private T data;
+}
@@ -0,0 +1,9 @@
+package guru.springframework.spring6reactive.model;
+
+public enum ChangeType {
+    CREATED, UPDATED, DELETED,
+    /**
+     * The changes since the client's last event are no longer retained, it has to reload what it tracks.
+     */
+    RESET
+}
@@ -0,0 +1,23 @@
+package guru.springframework.spring6reactive.model;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LookupRequestDTO {
+    public static final int MAX_IDS = 1000;
+
+    @NotEmpty
+    @Size(max = MAX_IDS)
+    private List<@NotNull Integer> ids;
+}
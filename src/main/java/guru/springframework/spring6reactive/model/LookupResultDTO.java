@@ -0,0 +1,21 @@
+package guru.springframework.spring6reactive.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LookupResultDTO<T> {
+    /**
+     * Rows by id, in the order the ids were requested.
+     */
+    private Map<Integer, T> found;
+    private List<Integer> missing;
+}
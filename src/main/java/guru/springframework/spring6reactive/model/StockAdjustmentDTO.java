@@ -0,0 +1,19 @@
+package guru.springframework.spring6reactive.model;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockAdjustmentDTO {
+    /**
+     * Added to the quantity on hand, negative for sales.
+     */
+    @NotNull
+    private Integer delta;
+}
@@ -1,7 +1,65 @@
 package guru.springframework.spring6reactive.repositories;
 
 import guru.springframework.spring6reactive.domain.Beer;
+import guru.springframework.spring6reactive.domain.BeerStyleStats;
+import guru.springframework.spring6reactive.domain.TableVersion;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 public interface BeerRepository extends ReactiveCrudRepository<Beer, Integer> {
+    /**
+     * Overwrites all editable columns in a single statement. H2 returns the updated row through
+     * its data change delta table, so an empty result means no row matched the id.
+     */
+    @Query("SELECT * FROM FINAL TABLE (UPDATE beer SET beer_name = :beerName, beer_style = :beerStyle, "
+            + "upc = :upc, quantity_on_hand = :quantityOnHand, price = :price, "
+            + "last_modified_date = :lastModifiedDate WHERE id = :id)")
+    Mono<Beer> updateBeer(Integer id, String beerName, String beerStyle, String upc, Integer quantityOnHand,
+                          BigDecimal price, LocalDateTime lastModifiedDate);
+
+    /**
+     * Like {@link #updateBeer} but keeps the current value of every column passed as {@code null}.
+     */
+    @Query("SELECT * FROM FINAL TABLE (UPDATE beer SET beer_name = COALESCE(:beerName, beer_name), "
+            + "beer_style = COALESCE(:beerStyle, beer_style), upc = COALESCE(:upc, upc), "
+            + "quantity_on_hand = COALESCE(:quantityOnHand, quantity_on_hand), price = COALESCE(:price, price), "
+            + "last_modified_date = :lastModifiedDate WHERE id = :id)")
+    Mono<Beer> patchBeer(Integer id, String beerName, String beerStyle, String upc, Integer quantityOnHand,
+                         BigDecimal price, LocalDateTime lastModifiedDate);
+
+    /**
+     * Adds {@code delta} to the quantity on hand in a single statement, so concurrent adjustments never
+     * overwrite each other. The row is only updated when the resulting stock is not negative; an empty
+     * result means either no row matched the id or there was not enough stock.
+     */
+    @Query("SELECT * FROM FINAL TABLE (UPDATE beer SET quantity_on_hand = COALESCE(quantity_on_hand, 0) + :delta, "
+            + "last_modified_date = :lastModifiedDate "
+            + "WHERE id = :id AND COALESCE(quantity_on_hand, 0) + :delta >= 0)")
+    Mono<Beer> adjustStock(Integer id, int delta, LocalDateTime lastModifiedDate);
+
+    /**
+     * Deletes the beer and returns the row as it was before the delete, empty when no row matched the id.
+     */
+    @Query("SELECT * FROM OLD TABLE (DELETE FROM beer WHERE id = :id)")
+    Mono<Beer> deleteBeerById(Integer id);
+
+    @Query("SELECT COUNT(*) AS row_count, MAX(last_modified_date) AS last_modified FROM beer")
+    Mono<TableVersion> findTableVersion();
+
+    /**
+     * Inventory totals per style, computed by the database so only one row per style is returned.
+     * With a {@code maxQuantityOnHand} only beers at or below that stock level are aggregated.
+     */
+    @Query("SELECT beer_style, COUNT(*) AS beer_count, COALESCE(SUM(quantity_on_hand), 0) AS total_stock, "
+            + "COALESCE(SUM(quantity_on_hand * price), 0) AS stock_value, MIN(price) AS min_price, "
+            + "MAX(price) AS max_price, AVG(price) AS avg_price FROM beer "
+            + "WHERE CAST(:maxQuantityOnHand AS INTEGER) IS NULL OR quantity_on_hand <= :maxQuantityOnHand "
+            + "GROUP BY beer_style ORDER BY beer_style")
+    Flux<BeerStyleStats> findStyleStats(Integer maxQuantityOnHand);
 }
@@ -1,7 +1,38 @@
 package guru.springframework.spring6reactive.repositories;
 
 import guru.springframework.spring6reactive.domain.Customer;
+import guru.springframework.spring6reactive.domain.TableVersion;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
 
 public interface CustomerRepository extends ReactiveCrudRepository<Customer, Integer> {
+    @Query("SELECT * FROM customer WHERE id > :after ORDER BY id LIMIT :limit")
+    Flux<Customer> findPageAfter(Integer after, int limit);
+
+    /**
+     * Updates the customer in a single statement. H2 returns the updated row through its data
+     * change delta table, so an empty result means no row matched the id.
+     */
+    @Query("SELECT * FROM FINAL TABLE (UPDATE customer SET customer_name = :customerName, "
+            + "last_modified_date = :lastModifiedDate WHERE id = :id)")
+    Mono<Customer> updateCustomer(Integer id, String customerName, LocalDateTime lastModifiedDate);
+
+    /**
+     * Like {@link #updateCustomer} but keeps the current name when {@code customerName} is {@code null}.
+     */
+    @Query("SELECT * FROM FINAL TABLE (UPDATE customer SET customer_name = COALESCE(:customerName, customer_name), "
+            + "last_modified_date = :lastModifiedDate WHERE id = :id)")
+    Mono<Customer> patchCustomer(Integer id, String customerName, LocalDateTime lastModifiedDate);
+
+    @Modifying
+    @Query("DELETE FROM customer WHERE id = :id")
+    Mono<Integer> deleteCustomerById(Integer id);
+
+    @Query("SELECT COUNT(*) AS row_count, MAX(last_modified_date) AS last_modified FROM customer")
+    Mono<TableVersion> findTableVersion();
 }
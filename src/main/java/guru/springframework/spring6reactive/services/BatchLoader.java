@@ -0,0 +1,186 @@
+package guru.springframework.spring6reactive.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Collects point reads by id and loads them in batches, like a DataLoader. Ids are queued for up to
+ * {@code window} or until {@code maxBatchSize} of them are waiting, whichever comes first, and loaded
+ * with a single query; each caller's future is then completed with its row, or with {@code null} when
+ * the id does not exist. The same id requested several times within a batch is loaded once. At most
+ * {@code maxConcurrentBatches} batches are loaded at a time, further ids wait for the next batch.
+ * <p>
+ * Each read waits up to {@code window} longer when it is alone, in exchange for one query instead of
+ * many when reads arrive together. Batch sizes are published as {@code batch.loader.batch.size}, next
+ * to the configured limits.
+ * <p>
+ * Closing the loader fails every read that has not been answered yet, whether its id is still waiting
+ * for a batch, queued in one or being loaded, so callers and the cache entries holding their futures
+ * do not wait forever.
+ */
+@Slf4j
+public class BatchLoader<V> implements AutoCloseable {
+    private final int maxBatchSize;
+    private final Duration window;
+    private final Function<List<Integer>, Flux<V>> loader;
+    private final Function<V, Integer> idExtractor;
+    private final Scheduler scheduler = Schedulers.parallel();
+
+    private final ConcurrentLinkedQueue<PendingLoad<V>> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final Sinks.Many<Batch<V>> batches = Sinks.many().unicast().onBackpressureBuffer();
+    private final Disposable pipeline;
+
+    private final Counter requestedIds;
+    private final Counter coalescedIds;
+    private final DistributionSummary batchSize;
+
+    public BatchLoader(String name, int maxBatchSize, Duration window, int maxConcurrentBatches,
+                       Function<List<Integer>, Flux<V>> loader, Function<V, Integer> idExtractor,
+                       MeterRegistry meterRegistry) {
+        this.maxBatchSize = maxBatchSize;
+        this.window = window;
+        this.loader = loader;
+        this.idExtractor = idExtractor;
+
+        this.requestedIds = Counter.builder("batch.loader.requests")
+                .description("Ids requested from the loader")
+                .tag("loader", name)
+                .register(meterRegistry);
+        this.coalescedIds = Counter.builder("batch.loader.coalesced")
+                .description("Requests for an id that was already part of the same batch")
+                .tag("loader", name)
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("batch.loader.batch.size")
+                .description("Distinct ids loaded per query")
+                .tag("loader", name)
+                .register(meterRegistry);
+        Gauge.builder("batch.loader.max.batch.size", () -> maxBatchSize)
+                .tag("loader", name)
+                .register(meterRegistry);
+        Gauge.builder("batch.loader.window", window, Duration::toNanos)
+                .baseUnit("nanoseconds")
+                .tag("loader", name)
+                .register(meterRegistry);
+
+        // batches queued in the sink when the pipeline is disposed are discarded, failing their reads
+        this.pipeline = this.batches.asFlux()
+                .flatMap(this::loadBatch, maxConcurrentBatches)
+                .doOnDiscard(Batch.class, batch -> batch.fail(new IllegalStateException("Batch loader was closed")))
+                .subscribe();
+    }
+
+    /**
+     * The row with the given id, completed with {@code null} when there is none.
+     */
+    public CompletableFuture<V> load(Integer id) {
+        PendingLoad<V> pendingLoad = new PendingLoad<>(id, new CompletableFuture<>());
+        this.pending.add(pendingLoad);
+        this.requestedIds.increment();
+
+        if (this.pendingCount.incrementAndGet() >= this.maxBatchSize) {
+            flush();
+        } else if (this.flushScheduled.compareAndSet(false, true)) {
+            this.scheduler.schedule(() -> {
+                // cleared before draining, ids queued from here on schedule a flush of their own
+                this.flushScheduled.set(false);
+                flush();
+            }, this.window.toNanos(), TimeUnit.NANOSECONDS);
+        }
+        return pendingLoad.result();
+    }
+
+    @Override
+    public void close() {
+        this.pipeline.dispose();
+
+        IllegalStateException closed = new IllegalStateException("Batch loader was closed");
+        PendingLoad<V> pendingLoad;
+        while ((pendingLoad = this.pending.poll()) != null) {
+            this.pendingCount.decrementAndGet();
+            pendingLoad.result().completeExceptionally(closed);
+        }
+    }
+
+    private void flush() {
+        List<PendingLoad<V>> batch = new ArrayList<>();
+        PendingLoad<V> pendingLoad;
+        while ((pendingLoad = this.pending.poll()) != null) {
+            this.pendingCount.decrementAndGet();
+            batch.add(pendingLoad);
+            if (batch.size() == this.maxBatchSize) {
+                emit(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            emit(batch);
+        }
+    }
+
+    private void emit(List<PendingLoad<V>> loads) {
+        Batch<V> batch = new Batch<>(loads);
+        Sinks.EmitResult result;
+        // flushes run on callers' threads and the scheduler, the sink only takes one emission at a time
+        synchronized (this.batches) {
+            result = this.batches.tryEmitNext(batch);
+        }
+        if (result.isFailure()) {
+            // also the way out for reads that race with close
+            batch.fail(new IllegalStateException("Could not load batch: " + result));
+        }
+    }
+
+    private Mono<Void> loadBatch(Batch<V> batch) {
+        Map<Integer, List<CompletableFuture<V>>> waiting = new LinkedHashMap<>();
+        batch.loads().forEach(pendingLoad -> waiting.computeIfAbsent(pendingLoad.id(), id -> new ArrayList<>())
+                .add(pendingLoad.result()));
+        this.coalescedIds.increment(batch.loads().size() - waiting.size());
+        this.batchSize.record(waiting.size());
+
+        return this.loader.apply(List.copyOf(waiting.keySet()))
+                .collectMap(this.idExtractor)
+                .doOnNext(rows -> waiting.forEach((id, results) ->
+                        results.forEach(result -> result.complete(rows.get(id)))))
+                .doOnError(throwable -> waiting.values().forEach(results ->
+                        results.forEach(result -> result.completeExceptionally(throwable))))
+                .doOnCancel(() -> batch.fail(new IllegalStateException("Batch loader was closed")))
+                .then()
+                // failed above, the batch must not end the pipeline for the ones after it
+                .onErrorResume(throwable -> {
+                    log.warn("Could not load batch of {} ids: {}", waiting.size(), throwable.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private record PendingLoad<V>(Integer id, CompletableFuture<V> result) {
+    }
+
+    private record Batch<V>(List<PendingLoad<V>> loads) {
+        void fail(Throwable throwable) {
+            this.loads.forEach(load -> load.result().completeExceptionally(throwable));
+        }
+    }
+}
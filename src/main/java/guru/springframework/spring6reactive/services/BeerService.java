@@ -1,19 +1,54 @@
 package guru.springframework.spring6reactive.services;
 
+import guru.springframework.spring6reactive.model.BeerBatchOperationDTO;
+import guru.springframework.spring6reactive.model.BeerBatchResultDTO;
 import guru.springframework.spring6reactive.model.BeerDTO;
+import guru.springframework.spring6reactive.model.BeerFilterDTO;
+import guru.springframework.spring6reactive.model.BeerStyleStatsDTO;
+import guru.springframework.spring6reactive.model.TableVersionDTO;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
 public interface BeerService {
     Flux<BeerDTO> listBeers();
 
+    Flux<BeerDTO> listBeers(BeerFilterDTO filter, Integer after, int limit);
+
+    /**
+     * Like {@link #listBeers(BeerFilterDTO, Integer, int)} but reads only the given properties, each beer
+     * is a map of property name to value.
+     */
+    Flux<Map<String, Object>> listBeerFields(BeerFilterDTO filter, Integer after, int limit, List<String> fields);
+
+    Flux<Map<String, Object>> listBeerFields(List<String> fields);
+
     Mono<BeerDTO> getBeerById(Integer beerId);
 
+    /**
+     * The beers that exist among the given ids, by id.
+     */
+    Mono<Map<Integer, BeerDTO>> getBeersByIds(Collection<Integer> beerIds);
+
+    Mono<TableVersionDTO> getBeerTableVersion();
+
+    Flux<BeerStyleStatsDTO> getBeerStyleStats(Integer lowStockThreshold);
+
     Mono<BeerDTO> saveNewBeer(BeerDTO beerDTO);
 
     Mono<BeerDTO> updateBeer(Integer beerId, BeerDTO beerDTO);
 
     Mono<BeerDTO> patchBeer(Integer beerId, BeerDTO beerDTO);
 
-    Mono<Void> deleteBeerById(Integer beerId);
+    /**
+     * Empty when the beer does not exist or the adjustment would make its stock negative.
+     */
+    Mono<BeerDTO> adjustStock(Integer beerId, int delta);
+
+    Mono<Boolean> deleteBeerById(Integer beerId);
+
+    Flux<BeerBatchResultDTO> executeBatch(List<BeerBatchOperationDTO> operations);
 }
@@ -1,83 +1,369 @@
 package guru.springframework.spring6reactive.services;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import guru.springframework.spring6reactive.domain.Beer;
 import guru.springframework.spring6reactive.mappers.BeerMapper;
+import guru.springframework.spring6reactive.mappers.TableVersionMapper;
+import guru.springframework.spring6reactive.model.BatchItemStatus;
+import guru.springframework.spring6reactive.model.BatchOperationType;
+import guru.springframework.spring6reactive.model.BeerBatchOperationDTO;
+import guru.springframework.spring6reactive.model.BeerBatchResultDTO;
 import guru.springframework.spring6reactive.model.BeerDTO;
+import guru.springframework.spring6reactive.model.BeerFilterDTO;
+import guru.springframework.spring6reactive.model.BeerStyleStatsDTO;
+import guru.springframework.spring6reactive.model.ChangeType;
+import guru.springframework.spring6reactive.model.TableVersionDTO;
 import guru.springframework.spring6reactive.repositories.BeerRepository;
 import io.netty.util.internal.StringUtil;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.dialect.Escaper;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
 import org.springframework.http.ResponseEntity;
+import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import org.springframework.util.StringUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
 @Service
 @RequiredArgsConstructor
 public class BeerServiceImpl implements BeerService {
 
+    private static final String SERVICE_NAME = "beer";
+    private static final int LOOKUP_CHUNK_SIZE = 100;
+    private static final String INSERT_BEER = "INSERT INTO beer (beer_name, beer_style, upc, quantity_on_hand, price, "
+            + "created_date, last_modified_date) VALUES ($1, $2, $3, $4, $5, $6, $6)";
+    private static final String UPDATE_BEER = "UPDATE beer SET beer_name = $1, beer_style = $2, upc = $3, "
+            + "quantity_on_hand = $4, price = $5, last_modified_date = $6 WHERE id = $7";
+    private static final String DELETE_BEER = "DELETE FROM beer WHERE id = $1";
+
     private final BeerRepository beerRepository;
     private final BeerMapper beerMapper;
+    private final TableVersionMapper tableVersionMapper;
+    private final DatabaseClient databaseClient;
+    private final R2dbcEntityTemplate entityTemplate;
+    private final TransactionalOperator transactionalOperator;
+    private final AsyncCache<Integer, BeerDTO> beerCache;
+    private final ServiceMetrics serviceMetrics;
+    private final ChangeFeed<BeerDTO> beerChangeFeed;
+    private final FieldProjections fieldProjections;
+    private final BatchLoader<BeerDTO> beerLoader;
 
     @Override
     public Flux<BeerDTO> listBeers() {
         return this.beerRepository.findAll()
-                .map(this.beerMapper::beerToBeerDTO);
+                .map(this.beerMapper::beerToBeerDTO)
+                .transform(this.serviceMetrics.flux(SERVICE_NAME, "listAllBeers"));
+    }
+
+    @Override
+    public Flux<BeerDTO> listBeers(BeerFilterDTO filter, Integer after, int limit) {
+        Query query = Query.query(toCriteria(filter, after))
+                .sort(Sort.by("id"))
+                .limit(limit);
+
+        return this.entityTemplate.select(query, Beer.class)
+                .map(this.beerMapper::beerToBeerDTO)
+                .transform(this.serviceMetrics.flux(SERVICE_NAME, "listBeers"));
+    }
+
+    @Override
+    public Flux<Map<String, Object>> listBeerFields(BeerFilterDTO filter, Integer after, int limit,
+                                                    List<String> fields) {
+        return this.fieldProjections.select(Beer.class, fields, toCriteria(filter, after), limit)
+                .transform(this.serviceMetrics.flux(SERVICE_NAME, "listBeerFields"));
+    }
+
+    @Override
+    public Flux<Map<String, Object>> listBeerFields(List<String> fields) {
+        return this.fieldProjections.select(Beer.class, fields, Criteria.empty(), null)
+                .transform(this.serviceMetrics.flux(SERVICE_NAME, "listAllBeerFields"));
     }
 
     @Override
     public Mono<BeerDTO> getBeerById(Integer beerId) {
-        return this.beerRepository.findById(beerId)
-                .map(this.beerMapper::beerToBeerDTO);
+        // concurrent misses for the same id share one lookup, cancelling a caller must not cancel it for the others;
+        // misses for different ids are batched into one query by the loader
+        return Mono.fromFuture(this.beerCache.get(beerId, (id, executor) -> this.beerLoader.load(id)), true)
+                .transform(this.serviceMetrics.mono(SERVICE_NAME, "getBeerById"));
+    }
+
+    @Override
+    public Mono<Map<Integer, BeerDTO>> getBeersByIds(Collection<Integer> beerIds) {
+        // cached beers are served from the cache, the misses are read with one IN query per chunk
+        return Mono.fromFuture(this.beerCache.getAll(beerIds, (ids, executor) -> Flux.<Integer>fromIterable(ids)
+                        .buffer(LOOKUP_CHUNK_SIZE)
+                        .concatMap(this.beerRepository::findAllById)
+                        .map(this.beerMapper::beerToBeerDTO)
+                        .collectMap(BeerDTO::getId)
+                        .toFuture()), true)
+                .transform(this.serviceMetrics.mono(SERVICE_NAME, "getBeersByIds"));
+    }
+
+    @Override
+    public Mono<TableVersionDTO> getBeerTableVersion() {
+        return this.beerRepository.findTableVersion()
+                .map(this.tableVersionMapper::tableVersionToTableVersionDTO)
+                .transform(this.serviceMetrics.mono(SERVICE_NAME, "getBeerTableVersion"));
+    }
+
+    @Override
+    public Flux<BeerStyleStatsDTO> getBeerStyleStats(Integer lowStockThreshold) {
+        return this.beerRepository.findStyleStats(lowStockThreshold)
+                .map(this.beerMapper::beerStyleStatsToBeerStyleStatsDTO)
+                .transform(this.serviceMetrics.flux(SERVICE_NAME, "getBeerStyleStats"));
     }
 
     @Override
     public Mono<BeerDTO> saveNewBeer(BeerDTO beerDTO) {
         return this.beerRepository.save(this.beerMapper.beerDTOToBeer(beerDTO))
-                .map(this.beerMapper::beerToBeerDTO);
+                .map(this.beerMapper::beerToBeerDTO)
+                .doOnNext(savedDto -> publishChange(ChangeType.CREATED, savedDto))
+                .transform(this.serviceMetrics.mono(SERVICE_NAME, "saveNewBeer"));
     }
 
     @Override
     public Mono<BeerDTO> updateBeer(Integer beerId, BeerDTO beerDTO) {
-        return this.beerRepository.findById(beerId)
-                .map(foundBeer -> {
-                    foundBeer.setBeerName(beerDTO.getBeerName());
-                    foundBeer.setBeerStyle(beerDTO.getBeerStyle());
-                    foundBeer.setPrice(beerDTO.getPrice());
-                    foundBeer.setUpc(beerDTO.getUpc());
-                    foundBeer.setQuantityOnHand(beerDTO.getQuantityOnHand());
-
-                    return foundBeer;
-                }).flatMap(this.beerRepository::save)       // flatMap zato ker se kreira nov publisher
-                .map(this.beerMapper::beerToBeerDTO);
+        return this.beerRepository.updateBeer(beerId, beerDTO.getBeerName(), beerDTO.getBeerStyle(),
+                        beerDTO.getUpc(), beerDTO.getQuantityOnHand(), beerDTO.getPrice(), LocalDateTime.now())
+                .map(this.beerMapper::beerToBeerDTO)
+                .doOnNext(this::cacheBeer)
+                .doOnNext(updatedDto -> publishChange(ChangeType.UPDATED, updatedDto))
+                .transform(this.serviceMetrics.mono(SERVICE_NAME, "updateBeer"));
     }
 
     @Override
     public Mono<BeerDTO> patchBeer(Integer beerId, BeerDTO beerDTO) {
-        return this.beerRepository.findById(beerId)
-                .map(foundBeer -> {
-                    if (StringUtils.hasText(beerDTO.getBeerName())) {
-                        foundBeer.setBeerName(beerDTO.getBeerName());
-                    }
-                    if (StringUtils.hasText(beerDTO.getBeerStyle())) {
-                        foundBeer.setBeerStyle(beerDTO.getBeerStyle());
-                    }
-                    if (beerDTO.getPrice() != null) {
-                        foundBeer.setPrice(beerDTO.getPrice());
-                    }
-                    if (StringUtils.hasText(beerDTO.getUpc())) {
-                        foundBeer.setUpc(beerDTO.getUpc());
-                    }
-                    if (beerDTO.getQuantityOnHand() != null) {
-                        foundBeer.setQuantityOnHand(beerDTO.getQuantityOnHand());
-                    }
+        // blank strings leave the column untouched, same as a missing value
+        return this.beerRepository.patchBeer(beerId, textOrNull(beerDTO.getBeerName()),
+                        textOrNull(beerDTO.getBeerStyle()), textOrNull(beerDTO.getUpc()),
+                        beerDTO.getQuantityOnHand(), beerDTO.getPrice(), LocalDateTime.now())
+                .map(this.beerMapper::beerToBeerDTO)
+                .doOnNext(this::cacheBeer)
+                .doOnNext(patchedDto -> publishChange(ChangeType.UPDATED, patchedDto))
+                .transform(this.serviceMetrics.mono(SERVICE_NAME, "patchBeer"));
+    }
+
+    @Override
+    public Mono<BeerDTO> adjustStock(Integer beerId, int delta) {
+        return this.beerRepository.adjustStock(beerId, delta, LocalDateTime.now())
+                .map(this.beerMapper::beerToBeerDTO)
+                .doOnNext(this::cacheBeer)
+                .doOnNext(adjustedDto -> publishChange(ChangeType.UPDATED, adjustedDto))
+                .transform(this.serviceMetrics.mono(SERVICE_NAME, "adjustStock"));
+    }
 
-                    return foundBeer;
-                }).flatMap(this.beerRepository::save)       // flatMap zato ker se kreira nov publisher
-                .map(this.beerMapper::beerToBeerDTO);
+    @Override
+    public Mono<Boolean> deleteBeerById(Integer beerId) {
+        return this.beerRepository.deleteBeerById(beerId)
+                .map(this.beerMapper::beerToBeerDTO)
+                .doOnNext(deletedDto -> publishChange(ChangeType.DELETED, deletedDto))
+                .map(deletedDto -> true)
+                .defaultIfEmpty(false)
+                .doOnNext(deleted -> this.beerCache.synchronous().invalidate(beerId))
+                .transform(this.serviceMetrics.mono(SERVICE_NAME, "deleteBeerById"));
     }
 
     @Override
-    public Mono<Void> deleteBeerById(Integer beerId) {
-        return  this.beerRepository.deleteById(beerId);
+    public Flux<BeerBatchResultDTO> executeBatch(List<BeerBatchOperationDTO> operations) {
+        List<Integer> creates = indexesOf(operations, BatchOperationType.CREATE);
+        List<Integer> updates = indexesOf(operations, BatchOperationType.UPDATE);
+        List<Integer> deletes = indexesOf(operations, BatchOperationType.DELETE);
+        LocalDateTime now = LocalDateTime.now();
+
+        // one statement per operation type, every item is added as a binding of that statement
+        return this.databaseClient.inConnectionMany(connection -> Flux.concat(
+                        insertBeers(connection, operations, creates, now),
+                        updateBeers(connection, operations, updates, now),
+                        deleteBeers(connection, operations, deletes)))
+                .as(this.transactionalOperator::transactional)
+                .collectList()
+                // evicted only after the commit, a concurrent read could otherwise cache the old row again
+                .doOnNext(results -> results.stream()
+                        .filter(result -> result.getOperation() != BatchOperationType.CREATE)
+                        .forEach(result -> this.beerCache.synchronous().invalidate(result.getId())))
+                .doOnNext(this::publishChanges)
+                .flatMapIterable(results -> results.stream()
+                        .sorted(Comparator.comparingInt(BeerBatchResultDTO::getIndex))
+                        .toList())
+                .transform(this.serviceMetrics.flux(SERVICE_NAME, "executeBatch"));
+    }
+
+    private Flux<BeerBatchResultDTO> insertBeers(Connection connection, List<BeerBatchOperationDTO> operations,
+                                                 List<Integer> indexes, LocalDateTime now) {
+        if (indexes.isEmpty()) {
+            return Flux.empty();
+        }
+
+        Statement statement = connection.createStatement(INSERT_BEER).returnGeneratedValues("id");
+        for (int i = 0; i < indexes.size(); i++) {
+            if (i > 0) {
+                statement.add();
+            }
+            bindBeer(statement, operations.get(indexes.get(i)).getBeer(), now);
+        }
+
+        return Flux.from(statement.execute())
+                .concatMap(result -> result.map((row, metadata) -> row.get(0, Integer.class)))
+                .index()
+                .map(generated -> toResult(indexes.get(generated.getT1().intValue()), BatchOperationType.CREATE,
+                        generated.getT2(), BatchItemStatus.CREATED));
+    }
+
+    private Flux<BeerBatchResultDTO> updateBeers(Connection connection, List<BeerBatchOperationDTO> operations,
+                                                 List<Integer> indexes, LocalDateTime now) {
+        if (indexes.isEmpty()) {
+            return Flux.empty();
+        }
+
+        Statement statement = connection.createStatement(UPDATE_BEER);
+        for (int i = 0; i < indexes.size(); i++) {
+            if (i > 0) {
+                statement.add();
+            }
+            BeerBatchOperationDTO operation = operations.get(indexes.get(i));
+            bindBeer(statement, operation.getBeer(), now);
+            statement.bind(6, operation.getId());
+        }
+
+        return rowsUpdatedPerBinding(statement, operations, indexes, BatchItemStatus.UPDATED);
+    }
+
+    private Flux<BeerBatchResultDTO> deleteBeers(Connection connection, List<BeerBatchOperationDTO> operations,
+                                                 List<Integer> indexes) {
+        if (indexes.isEmpty()) {
+            return Flux.empty();
+        }
+
+        Statement statement = connection.createStatement(DELETE_BEER);
+        for (int i = 0; i < indexes.size(); i++) {
+            if (i > 0) {
+                statement.add();
+            }
+            statement.bind(0, operations.get(indexes.get(i)).getId());
+        }
+
+        return rowsUpdatedPerBinding(statement, operations, indexes, BatchItemStatus.DELETED);
+    }
+
+    private Flux<BeerBatchResultDTO> rowsUpdatedPerBinding(Statement statement, List<BeerBatchOperationDTO> operations,
+                                                           List<Integer> indexes, BatchItemStatus successStatus) {
+        return Flux.from(statement.execute())
+                .concatMap(Result::getRowsUpdated)
+                .index()
+                .map(updated -> {
+                    int index = indexes.get(updated.getT1().intValue());
+                    BeerBatchOperationDTO operation = operations.get(index);
+
+                    return toResult(index, operation.getOperation(), operation.getId(),
+                            updated.getT2() > 0 ? successStatus : BatchItemStatus.NOT_FOUND);
+                });
+    }
+
+    private static void bindBeer(Statement statement, BeerDTO beer, LocalDateTime now) {
+        bindNullable(statement, 0, beer.getBeerName(), String.class);
+        bindNullable(statement, 1, beer.getBeerStyle(), String.class);
+        bindNullable(statement, 2, beer.getUpc(), String.class);
+        bindNullable(statement, 3, beer.getQuantityOnHand(), Integer.class);
+        bindNullable(statement, 4, beer.getPrice(), BigDecimal.class);
+        statement.bind(5, now);
+    }
+
+    private static void bindNullable(Statement statement, int index, Object value, Class<?> type) {
+        if (value == null) {
+            statement.bindNull(index, type);
+        } else {
+            statement.bind(index, value);
+        }
+    }
+
+    private void publishChange(ChangeType type, BeerDTO beerDTO) {
+        this.beerChangeFeed.publish(type, beerDTO.getId(), beerDTO);
+    }
+
+    private void publishChanges(List<BeerBatchResultDTO> results) {
+        // the batch statements do not return rows, the events only carry the ids
+        results.stream()
+                .sorted(Comparator.comparingInt(BeerBatchResultDTO::getIndex))
+                .forEach(result -> {
+                    switch (result.getStatus()) {
+                        case CREATED -> this.beerChangeFeed.publish(ChangeType.CREATED, result.getId(), null);
+                        case UPDATED -> this.beerChangeFeed.publish(ChangeType.UPDATED, result.getId(), null);
+                        case DELETED -> this.beerChangeFeed.publish(ChangeType.DELETED, result.getId(), null);
+                        case NOT_FOUND -> {
+                        }
+                    }
+                });
+    }
+
+    private void cacheBeer(BeerDTO beerDTO) {
+        this.beerCache.put(beerDTO.getId(), CompletableFuture.completedFuture(beerDTO));
+    }
+
+    static Criteria toCriteria(BeerFilterDTO filter, Integer after) {
+        // a range on id of its own makes the planner prefer the primary key over the filter's index
+        Criteria criteria = after == null ? Criteria.empty() : Criteria.where("id").greaterThan(after);
+
+        if (StringUtils.hasText(filter.getBeerName())) {
+            String name = Escaper.DEFAULT.escape(filter.getBeerName());
+            // only a prefix match can use the beer_name index
+            criteria = criteria.and("beerName").like(filter.getNameMatch() == BeerFilterDTO.NameMatch.CONTAINS
+                    ? "%" + name + "%"
+                    : name + "%");
+        }
+        if (StringUtils.hasText(filter.getBeerStyle())) {
+            criteria = criteria.and("beerStyle").is(filter.getBeerStyle());
+        }
+        if (StringUtils.hasText(filter.getUpc())) {
+            criteria = criteria.and("upc").is(filter.getUpc());
+        }
+        if (filter.getMinPrice() != null) {
+            criteria = criteria.and("price").greaterThanOrEquals(filter.getMinPrice());
+        }
+        if (filter.getMaxPrice() != null) {
+            criteria = criteria.and("price").lessThanOrEquals(filter.getMaxPrice());
+        }
+        if (Boolean.TRUE.equals(filter.getInStock())) {
+            criteria = criteria.and("quantityOnHand").greaterThan(0);
+        }
+
+        return criteria;
+    }
+
+    private static String textOrNull(String value) {
+        return StringUtils.hasText(value) ? value : null;
+    }
+
+    private static List<Integer> indexesOf(List<BeerBatchOperationDTO> operations, BatchOperationType type) {
+        return IntStream.range(0, operations.size())
+                .filter(index -> operations.get(index).getOperation() == type)
+                .boxed()
+                .toList();
+    }
+
+    private static BeerBatchResultDTO toResult(int index, BatchOperationType operation, Integer id,
+                                               BatchItemStatus status) {
+        return BeerBatchResultDTO.builder()
+                .index(index)
+                .operation(operation)
+                .id(id)
+                .status(status)
+                .build();
     }
 }
@@ -0,0 +1,147 @@
+package guru.springframework.spring6reactive.services;
+
+import guru.springframework.spring6reactive.model.ChangeEventDTO;
+import guru.springframework.spring6reactive.model.ChangeType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Create, update and delete events of one kind of row, multicast to every subscriber of the change
+ * stream. Events are numbered in the order they were published and the last {@code replaySize} of them
+ * are retained, so a client that reconnects with the {@link EventId} of the last event it saw gets the
+ * ones it missed. Sequences start over when the process does, so an event id also carries the
+ * {@code epoch} of the process that published it. A client that was away for longer, or presents an
+ * event id of an earlier epoch, gets a single {@link ChangeType#RESET} event instead and has to reload.
+ * <p>
+ * Publishing never waits for subscribers. Each subscriber has a buffer of {@code subscriberBuffer}
+ * events; when it does not keep up, the oldest buffered events are dropped in favour of newer ones and
+ * counted in {@code change.feed.dropped}. Clients notice the gap in the sequence numbers and can reload.
+ */
+@Slf4j
+public class ChangeFeed<T> {
+    private final long epoch;
+    private final int replaySize;
+    private final int subscriberBuffer;
+    private final Duration heartbeatInterval;
+
+    private final Sinks.Many<ChangeEventDTO<T>> sink;
+    private volatile long sequence;
+
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final Counter publishedEvents;
+    private final Counter droppedEvents;
+
+    public ChangeFeed(String name, long epoch, int replaySize, int subscriberBuffer, Duration heartbeatInterval,
+                      MeterRegistry meterRegistry) {
+        this.epoch = epoch;
+        this.replaySize = replaySize;
+        this.subscriberBuffer = subscriberBuffer;
+        this.heartbeatInterval = heartbeatInterval;
+        this.sink = Sinks.many().replay().limit(replaySize);
+
+        this.publishedEvents = Counter.builder("change.feed.published")
+                .tag("feed", name)
+                .register(meterRegistry);
+        this.droppedEvents = Counter.builder("change.feed.dropped")
+                .description("Events dropped from the buffer of a subscriber that did not keep up")
+                .tag("feed", name)
+                .register(meterRegistry);
+        Gauge.builder("change.feed.subscribers", this.subscribers, AtomicInteger::get)
+                .tag("feed", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Numbers and emits a change. Serialized, so subscribers see the events in sequence order.
+     */
+    public synchronized void publish(ChangeType type, Integer id, T data) {
+        ChangeEventDTO<T> event = ChangeEventDTO.<T>builder()
+                .sequence(this.sequence + 1)
+                .type(type)
+                .id(id)
+                .data(data)
+                .build();
+
+        Sinks.EmitResult result = this.sink.tryEmitNext(event);
+        if (result.isFailure()) {
+            log.warn("Could not publish {} event for id {}: {}", type, id, result);
+            return;
+        }
+        this.sequence = event.getSequence();
+        this.publishedEvents.increment();
+    }
+
+    /**
+     * Events published after {@code lastEventId}, or from now on when it is {@code null}, that match the
+     * filter.
+     */
+    public Flux<ChangeEventDTO<T>> subscribe(EventId lastEventId, Predicate<ChangeEventDTO<T>> filter) {
+        return Flux.defer(() -> {
+            // read before subscribing, events published in between are still replayed
+            long current = this.sequence;
+            boolean resumable = lastEventId == null
+                    || (lastEventId.epoch() == this.epoch
+                    && lastEventId.sequence() >= current - this.replaySize && lastEventId.sequence() <= current);
+            long after = resumable && lastEventId != null ? lastEventId.sequence() : current;
+
+            Flux<ChangeEventDTO<T>> events = this.sink.asFlux()
+                    .filter(event -> event.getSequence() > after)
+                    .filter(filter)
+                    .onBackpressureBuffer(this.subscriberBuffer, dropped -> this.droppedEvents.increment(),
+                            BufferOverflowStrategy.DROP_OLDEST);
+
+            if (!resumable) {
+                events = events.startWith(ChangeEventDTO.<T>builder()
+                        .sequence(current)
+                        .type(ChangeType.RESET)
+                        .build());
+            }
+            return events;
+        })
+                .doOnSubscribe(subscription -> this.subscribers.incrementAndGet())
+                .doFinally(signal -> this.subscribers.decrementAndGet());
+    }
+
+    /**
+     * The id a client presents to resume after the given event.
+     */
+    public EventId eventId(ChangeEventDTO<T> event) {
+        return new EventId(this.epoch, event.getSequence());
+    }
+
+    public long getEpoch() {
+        return this.epoch;
+    }
+
+    public Duration getHeartbeatInterval() {
+        return this.heartbeatInterval;
+    }
+
+    /**
+     * Position in the feed of one process, written as {@code <epoch>-<sequence>}.
+     */
+    public record EventId(long epoch, long sequence) {
+        public static EventId parse(String value) {
+            int separator = value.indexOf('-');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Not an event id: " + value);
+            }
+            return new EventId(Long.parseLong(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        }
+
+        @Override
+        public String toString() {
+            return this.epoch + "-" + this.sequence;
+        }
+    }
+}
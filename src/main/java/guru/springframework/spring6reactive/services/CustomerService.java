@@ -1,22 +1,43 @@
 package guru.springframework.spring6reactive.services;
 
 import guru.springframework.spring6reactive.model.CustomerDTO;
+import guru.springframework.spring6reactive.model.TableVersionDTO;
 import org.springframework.http.ResponseEntity;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface CustomerService {
     Flux<CustomerDTO> listCustomers();
 
+    Flux<CustomerDTO> listCustomers(Integer after, int limit);
+
+    /**
+     * Like {@link #listCustomers(Integer, int)} but reads only the given properties, each customer is a
+     * map of property name to value.
+     */
+    Flux<Map<String, Object>> listCustomerFields(Integer after, int limit, List<String> fields);
+
+    Flux<Map<String, Object>> listCustomerFields(List<String> fields);
+
     Mono<CustomerDTO> getCustomerById(Integer customerId);
 
+    /**
+     * The customers that exist among the given ids, by id.
+     */
+    Mono<Map<Integer, CustomerDTO>> getCustomersByIds(Collection<Integer> customerIds);
+
+    Mono<TableVersionDTO> getCustomerTableVersion();
+
     Mono<CustomerDTO> saveNewCustomer(CustomerDTO customerDto);
 
     Mono<CustomerDTO> updateCustomer(Integer id, CustomerDTO customerDTO);
 
     Mono<CustomerDTO> patchCustomer(Integer customerId, CustomerDTO customerDTO);
 
-    Mono<Void> deleteCustomerById(Integer customerId);
+    Mono<Boolean> deleteCustomerById(Integer customerId);
 }
@@ -1,65 +1,143 @@
 package guru.springframework.spring6reactive.services;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import guru.springframework.spring6reactive.domain.Customer;
 import guru.springframework.spring6reactive.mappers.CustomerMapper;
+import guru.springframework.spring6reactive.mappers.TableVersionMapper;
+import guru.springframework.spring6reactive.model.ChangeType;
 import guru.springframework.spring6reactive.model.CustomerDTO;
+import guru.springframework.spring6reactive.model.TableVersionDTO;
 import guru.springframework.spring6reactive.repositories.CustomerRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.relational.core.query.Criteria;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 @Service
 @RequiredArgsConstructor
 public class CustomerServiceImpl implements CustomerService {
+    private static final String SERVICE_NAME = "customer";
+    private static final int LOOKUP_CHUNK_SIZE = 100;
+
     private final CustomerRepository customerRepository;
     private final CustomerMapper customerMapper;
+    private final TableVersionMapper tableVersionMapper;
+    private final AsyncCache<Integer, CustomerDTO> customerCache;
+    private final ServiceMetrics serviceMetrics;
+    private final ChangeFeed<CustomerDTO> customerChangeFeed;
+    private final FieldProjections fieldProjections;
+    private final BatchLoader<CustomerDTO> customerLoader;
 
     @Override
     public Flux<CustomerDTO> listCustomers() {
         return this.customerRepository.findAll()
-                .map(this.customerMapper::customerToCustomerDTO);
+                .map(this.customerMapper::customerToCustomerDTO)
+                .transform(this.serviceMetrics.flux(SERVICE_NAME, "listAllCustomers"));
+    }
+
+    @Override
+    public Flux<CustomerDTO> listCustomers(Integer after, int limit) {
+        return this.customerRepository.findPageAfter(after == null ? 0 : after, limit)
+                .map(this.customerMapper::customerToCustomerDTO)
+                .transform(this.serviceMetrics.flux(SERVICE_NAME, "listCustomers"));
+    }
+
+    @Override
+    public Flux<Map<String, Object>> listCustomerFields(Integer after, int limit, List<String> fields) {
+        return this.fieldProjections.select(Customer.class, fields,
+                        Criteria.where("id").greaterThan(after == null ? 0 : after), limit)
+                .transform(this.serviceMetrics.flux(SERVICE_NAME, "listCustomerFields"));
+    }
+
+    @Override
+    public Flux<Map<String, Object>> listCustomerFields(List<String> fields) {
+        return this.fieldProjections.select(Customer.class, fields, Criteria.empty(), null)
+                .transform(this.serviceMetrics.flux(SERVICE_NAME, "listAllCustomerFields"));
     }
 
     @Override
     public Mono<CustomerDTO> getCustomerById(Integer customerId) {
-        return this.customerRepository.findById(customerId)
-                .map(this.customerMapper::customerToCustomerDTO);
+        // concurrent misses for the same id share one lookup, cancelling a caller must not cancel it for the others;
+        // misses for different ids are batched into one query by the loader
+        return Mono.fromFuture(this.customerCache.get(customerId, (id, executor) -> this.customerLoader.load(id)),
+                        true)
+                .transform(this.serviceMetrics.mono(SERVICE_NAME, "getCustomerById"));
+    }
+
+    @Override
+    public Mono<Map<Integer, CustomerDTO>> getCustomersByIds(Collection<Integer> customerIds) {
+        // cached customers are served from the cache, the misses are read with one IN query per chunk
+        return Mono.fromFuture(this.customerCache.getAll(customerIds, (ids, executor) -> Flux.<Integer>fromIterable(ids)
+                        .buffer(LOOKUP_CHUNK_SIZE)
+                        .concatMap(this.customerRepository::findAllById)
+                        .map(this.customerMapper::customerToCustomerDTO)
+                        .collectMap(CustomerDTO::getId)
+                        .toFuture()), true)
+                .transform(this.serviceMetrics.mono(SERVICE_NAME, "getCustomersByIds"));
+    }
+
+    @Override
+    public Mono<TableVersionDTO> getCustomerTableVersion() {
+        return this.customerRepository.findTableVersion()
+                .map(this.tableVersionMapper::tableVersionToTableVersionDTO)
+                .transform(this.serviceMetrics.mono(SERVICE_NAME, "getCustomerTableVersion"));
     }
 
     @Override
     public Mono<CustomerDTO> saveNewCustomer(CustomerDTO customerDto) {
-        return this.customerRepository.save(
-                this.customerMapper.customerDTOToCustomer(customerDto)
-        ).map(this.customerMapper::customerToCustomerDTO);
+        return this.customerRepository.save(this.customerMapper.customerDTOToCustomer(customerDto))
+                .map(this.customerMapper::customerToCustomerDTO)
+                .doOnNext(savedDto -> publishChange(ChangeType.CREATED, savedDto))
+                .transform(this.serviceMetrics.mono(SERVICE_NAME, "saveNewCustomer"));
     }
 
     @Override
     public Mono<CustomerDTO> updateCustomer(Integer customerId, CustomerDTO customerDTO) {
-        return this.customerRepository.findById(customerId)
-                .map(foundCustomer -> {
-                    foundCustomer.setCustomerName(customerDTO.getCustomerName());
-
-                    return foundCustomer;
-                }).flatMap(this.customerRepository::save)
-                .map(this.customerMapper::customerToCustomerDTO);
+        return this.customerRepository.updateCustomer(customerId, customerDTO.getCustomerName(), LocalDateTime.now())
+                .map(this.customerMapper::customerToCustomerDTO)
+                .doOnNext(this::cacheCustomer)
+                .doOnNext(updatedDto -> publishChange(ChangeType.UPDATED, updatedDto))
+                .transform(this.serviceMetrics.mono(SERVICE_NAME, "updateCustomer"));
     }
 
     @Override
     public Mono<CustomerDTO> patchCustomer(Integer customerId, CustomerDTO customerDTO) {
-        return this.customerRepository.findById(customerId)
-                .map(foundCustomer -> {
-                    if (StringUtils.hasText(customerDTO.getCustomerName())) {
-                        foundCustomer.setCustomerName(customerDTO.getCustomerName());
-                    }
+        // a blank name leaves the column untouched, same as a missing value
+        String customerName = StringUtils.hasText(customerDTO.getCustomerName()) ? customerDTO.getCustomerName() : null;
 
-                    return foundCustomer;
-                }).flatMap(this.customerRepository::save)
-                .map(this.customerMapper::customerToCustomerDTO);
+        return this.customerRepository.patchCustomer(customerId, customerName, LocalDateTime.now())
+                .map(this.customerMapper::customerToCustomerDTO)
+                .doOnNext(this::cacheCustomer)
+                .doOnNext(patchedDto -> publishChange(ChangeType.UPDATED, patchedDto))
+                .transform(this.serviceMetrics.mono(SERVICE_NAME, "patchCustomer"));
     }
 
     @Override
-    public Mono<Void> deleteCustomerById(Integer customerId) {
-        return this.customerRepository.deleteById(customerId);
+    public Mono<Boolean> deleteCustomerById(Integer customerId) {
+        return this.customerRepository.deleteCustomerById(customerId)
+                .doOnNext(deletedRows -> this.customerCache.synchronous().invalidate(customerId))
+                .doOnNext(deletedRows -> {
+                    if (deletedRows > 0) {
+                        this.customerChangeFeed.publish(ChangeType.DELETED, customerId, null);
+                    }
+                })
+                .map(deletedRows -> deletedRows > 0)
+                .transform(this.serviceMetrics.mono(SERVICE_NAME, "deleteCustomerById"));
+    }
+
+    private void publishChange(ChangeType type, CustomerDTO customerDTO) {
+        this.customerChangeFeed.publish(type, customerDTO.getId(), customerDTO);
+    }
+
+    private void cacheCustomer(CustomerDTO customerDTO) {
+        this.customerCache.put(customerDTO.getId(), CompletableFuture.completedFuture(customerDTO));
     }
 }
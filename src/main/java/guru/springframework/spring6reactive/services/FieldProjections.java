@@ -0,0 +1,57 @@
+package guru.springframework.spring6reactive.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.core.StatementMapper;
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Selects only some properties of an entity, for clients that asked for a sparse fieldset. The
+ * statement is built by the same {@link StatementMapper} that backs the entity template, so property
+ * names and criteria are mapped to columns exactly like in full entity queries, but only the requested
+ * columns are read and each row is returned as a map of property name to column value, without
+ * instantiating the entity or mapping it to a DTO. Entity and DTO property names are the same, so the
+ * maps serialize like the DTOs with the other properties left out.
+ */
+@Component
+@RequiredArgsConstructor
+public class FieldProjections {
+    private final R2dbcEntityTemplate entityTemplate;
+
+    public Flux<Map<String, Object>> select(Class<?> entityType, List<String> fields, Criteria criteria,
+                                            Integer limit) {
+        RelationalPersistentEntity<?> entity = this.entityTemplate.getConverter().getMappingContext()
+                .getRequiredPersistentEntity(entityType);
+        List<? extends Class<?>> types = fields.stream()
+                .map(field -> entity.getRequiredPersistentProperty(field).getType())
+                .toList();
+
+        StatementMapper statementMapper = this.entityTemplate.getDataAccessStrategy().getStatementMapper()
+                .forType(entityType);
+        StatementMapper.SelectSpec select = statementMapper.createSelect(entity.getTableName())
+                .withProjection(fields.toArray(String[]::new))
+                .withCriteria(criteria)
+                .withSort(Sort.by("id"));
+        if (limit != null) {
+            select = select.limit(limit);
+        }
+
+        return this.entityTemplate.getDatabaseClient().sql(statementMapper.getMappedObject(select))
+                .map((row, metadata) -> {
+                    Map<String, Object> values = new LinkedHashMap<>(fields.size() * 2);
+                    for (int i = 0; i < fields.size(); i++) {
+                        values.put(fields.get(i), row.get(i, types.get(i)));
+                    }
+                    return values;
+                })
+                .all();
+    }
+}
@@ -0,0 +1,38 @@
+package guru.springframework.spring6reactive.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.observability.micrometer.Micrometer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+/**
+ * Times the reactive pipelines returned by the services. Every sequence is named {@value #METRIC_NAME}
+ * and tagged with the service and method, so Reactor publishes {@code service.flow.duration} timers
+ * (tagged with the completion status) that can be configured through
+ * {@code management.metrics.distribution.*.service}.
+ */
+@Component
+@RequiredArgsConstructor
+public class ServiceMetrics {
+    public static final String METRIC_NAME = "service";
+
+    private final MeterRegistry meterRegistry;
+
+    public <T> Function<Mono<T>, Mono<T>> mono(String service, String method) {
+        return mono -> mono.name(METRIC_NAME)
+                .tag("service", service)
+                .tag("method", method)
+                .tap(Micrometer.metrics(this.meterRegistry));
+    }
+
+    public <T> Function<Flux<T>, Flux<T>> flux(String service, String method) {
+        return flux -> flux.name(METRIC_NAME)
+                .tag("service", service)
+                .tag("method", method)
+                .tap(Micrometer.metrics(this.meterRegistry));
+    }
+}
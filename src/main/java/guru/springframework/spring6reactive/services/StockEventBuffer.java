@@ -0,0 +1,306 @@
+package guru.springframework.spring6reactive.services;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import guru.springframework.spring6reactive.model.BeerDTO;
+import guru.springframework.spring6reactive.model.ChangeType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Collects stock changes from the point of sale and writes them in batches. Events are summed per beer
+ * id in a {@link ConcurrentHashMap}, so producers only contend on the bin of the id they update, and a
+ * beer that sold a hundred times between two flushes costs a single row update. The buffer is flushed
+ * with one batched {@code UPDATE} when {@code batch-size} events are pending or every
+ * {@code flush-interval}, whichever comes first. Once {@code max-pending-ids} beers are waiting, events
+ * for further beers are held back until the next flush has completed, which backpressures the request
+ * stream. On shutdown the triggers stop, a flush that is already writing is allowed to finish, and
+ * whatever is still pending is flushed before the connection pool closes. Events for beers that do not exist update no row; they are counted as
+ * {@code stock.events.unmatched} and their ids logged once the flush has run.
+ */
+@Slf4j
+@Service
+public class StockEventBuffer implements SmartLifecycle {
+    private static final String ADJUST_STOCK = "UPDATE beer SET quantity_on_hand = "
+            + "GREATEST(COALESCE(quantity_on_hand, 0) + $1, 0), last_modified_date = $2 WHERE id = $3";
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    private final AsyncCache<Integer, BeerDTO> beerCache;
+    private final ChangeFeed<BeerDTO> beerChangeFeed;
+    private final int batchSize;
+    private final int maxPendingIds;
+    private final Duration flushInterval;
+    private final Duration shutdownTimeout;
+
+    private final ConcurrentHashMap<Integer, PendingDelta> pending = new ConcurrentHashMap<>();
+    private final AtomicLong pendingEvents = new AtomicLong();
+    private final Sinks.Many<Long> flushRequests = Sinks.many().multicast().directBestEffort();
+    private final AtomicReference<Sinks.Empty<Void>> nextFlush = new AtomicReference<>(Sinks.empty());
+    private volatile Sinks.Empty<Void> stopTriggers;
+    private volatile CompletableFuture<Void> scheduledFlushes;
+
+    private final Counter receivedEvents;
+    private final Counter throttledEvents;
+    private final Counter flushedRows;
+    private final Counter unmatchedEvents;
+    private final Counter failedFlushes;
+    private final DistributionSummary coalescingRatio;
+    private final Timer flushTimer;
+
+    public StockEventBuffer(DatabaseClient databaseClient,
+                            TransactionalOperator transactionalOperator,
+                            AsyncCache<Integer, BeerDTO> beerCache,
+                            ChangeFeed<BeerDTO> beerChangeFeed,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.stock-events.batch-size}") int batchSize,
+                            @Value("${app.stock-events.max-pending-ids}") int maxPendingIds,
+                            @Value("${app.stock-events.flush-interval}") Duration flushInterval,
+                            @Value("${app.stock-events.shutdown-timeout}") Duration shutdownTimeout) {
+        this.databaseClient = databaseClient;
+        this.transactionalOperator = transactionalOperator;
+        this.beerCache = beerCache;
+        this.beerChangeFeed = beerChangeFeed;
+        this.batchSize = batchSize;
+        this.maxPendingIds = maxPendingIds;
+        this.flushInterval = flushInterval;
+        this.shutdownTimeout = shutdownTimeout;
+
+        this.receivedEvents = Counter.builder("stock.events.received")
+                .description("Stock events accepted into the buffer")
+                .register(meterRegistry);
+        this.throttledEvents = Counter.builder("stock.events.throttled")
+                .description("Stock events that had to wait for a flush because the buffer was full")
+                .register(meterRegistry);
+        this.flushedRows = Counter.builder("stock.events.flushed.rows")
+                .description("Beer rows updated by flushes")
+                .register(meterRegistry);
+        this.unmatchedEvents = Counter.builder("stock.events.unmatched")
+                .description("Flushed stock events for beers that do not exist")
+                .register(meterRegistry);
+        this.failedFlushes = Counter.builder("stock.events.flush.failures")
+                .register(meterRegistry);
+        this.coalescingRatio = DistributionSummary.builder("stock.events.coalescing.ratio")
+                .description("Events per updated row in a flush")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("stock.events.flush")
+                .description("Time to write one batch of coalesced stock changes")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("stock.events.pending", this.pendingEvents, AtomicLong::get)
+                .description("Events waiting for the next flush")
+                .register(meterRegistry);
+        Gauge.builder("stock.events.pending.ids", this.pending, Map::size)
+                .description("Distinct beers waiting for the next flush")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Adds a stock change to the buffer. Completes immediately unless the buffer is full, in which case
+     * it completes once a flush has made room for the beer.
+     */
+    public Mono<Void> add(Integer beerId, int delta) {
+        return Mono.defer(() -> {
+            if (this.pending.size() >= this.maxPendingIds && !this.pending.containsKey(beerId)) {
+                this.throttledEvents.increment();
+                // taken before asking for the flush, which may well complete on this thread
+                Mono<Void> nextFlush = this.nextFlush.get().asMono();
+                requestFlush();
+                return nextFlush.then(add(beerId, delta));
+            }
+
+            this.pending.merge(beerId, new PendingDelta(delta, 1), PendingDelta::plus);
+            this.receivedEvents.increment();
+            if (this.pendingEvents.incrementAndGet() >= this.batchSize) {
+                requestFlush();
+            }
+            return Mono.empty();
+        });
+    }
+
+    /**
+     * Writes everything pending in one transaction and emits the number of updated rows. Events added
+     * while the flush runs are left for the next one; if the write fails, the drained changes are put
+     * back into the buffer.
+     */
+    public Mono<Long> flush() {
+        return Mono.defer(() -> {
+            Map<Integer, PendingDelta> drained = drain();
+            if (drained.isEmpty()) {
+                return Mono.just(0L);
+            }
+
+            long events = drained.values().stream().mapToLong(PendingDelta::events).sum();
+            this.pendingEvents.addAndGet(-events);
+            Timer.Sample sample = Timer.start();
+
+            return write(drained)
+                    .doOnNext(updated -> {
+                        sample.stop(this.flushTimer);
+                        this.flushedRows.increment(updated.size());
+                        this.coalescingRatio.record((double) events / drained.size());
+                        updated.forEach(beerId -> {
+                            this.beerCache.synchronous().invalidate(beerId);
+                            this.beerChangeFeed.publish(ChangeType.UPDATED, beerId, null);
+                        });
+                        if (updated.size() < drained.size()) {
+                            reportUnmatched(drained, updated);
+                        }
+                    })
+                    .map(updated -> (long) updated.size())
+                    .doOnError(throwable -> {
+                        this.failedFlushes.increment();
+                        drained.forEach((beerId, delta) -> this.pending.merge(beerId, delta, PendingDelta::plus));
+                        this.pendingEvents.addAndGet(events);
+                    });
+        }).doFinally(signal -> this.nextFlush.getAndSet(Sinks.empty()).tryEmitEmpty());
+    }
+
+    @Override
+    public void start() {
+        this.stopTriggers = Sinks.empty();
+        this.scheduledFlushes = Flux.merge(Flux.interval(this.flushInterval, this.flushInterval),
+                        this.flushRequests.asFlux())
+                // completes rather than cancels, a flush in progress still commits or puts its changes back
+                .takeUntilOther(this.stopTriggers.asMono())
+                // a flush already drains everything, requests arriving while one runs can be dropped
+                .onBackpressureDrop()
+                .concatMap(trigger -> flush()
+                        .onErrorResume(throwable -> {
+                            log.warn("Could not flush stock events, retrying with the next flush: {}",
+                                    throwable.getMessage());
+                            return Mono.empty();
+                        }), 1)
+                .then()
+                .toFuture();
+    }
+
+    @Override
+    public void stop() {
+        CompletableFuture<Void> flushes = this.scheduledFlushes;
+        if (flushes != null) {
+            this.stopTriggers.tryEmitEmpty();
+            awaitScheduledFlush(flushes);
+        }
+        this.scheduledFlushes = null;
+
+        try {
+            Long rows = flush().block(this.shutdownTimeout);
+            log.info("Flushed pending stock changes of {} beers on shutdown", rows);
+        } catch (RuntimeException e) {
+            log.error("Could not flush {} pending stock events on shutdown", this.pendingEvents.get(), e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return this.scheduledFlushes != null;
+    }
+
+    /**
+     * Stops before the default phase, after the web server has stopped taking requests but while the
+     * connection pool is still open.
+     */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    private void awaitScheduledFlush(CompletableFuture<Void> flushes) {
+        try {
+            flushes.get(this.shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.error("Flush still running after {}, cancelling it and losing its changes", this.shutdownTimeout);
+            flushes.cancel(true);
+        } catch (ExecutionException e) {
+            log.error("Scheduled flushes failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            flushes.cancel(true);
+        }
+    }
+
+    private void requestFlush() {
+        // best effort, the scheduled flush picks up anything a failed emission leaves behind
+        this.flushRequests.tryEmitNext(System.nanoTime());
+    }
+
+    private Map<Integer, PendingDelta> drain() {
+        Map<Integer, PendingDelta> drained = new HashMap<>();
+        for (Integer beerId : this.pending.keySet()) {
+            PendingDelta delta = this.pending.remove(beerId);
+            if (delta != null) {
+                drained.put(beerId, delta);
+            }
+        }
+        return drained;
+    }
+
+    private void reportUnmatched(Map<Integer, PendingDelta> drained, List<Integer> updated) {
+        Map<Integer, PendingDelta> unmatched = new HashMap<>(drained);
+        unmatched.keySet().removeAll(updated);
+        this.unmatchedEvents.increment(unmatched.values().stream().mapToLong(PendingDelta::events).sum());
+        log.warn("Dropped stock events for beers that do not exist: {}", unmatched.keySet());
+    }
+
+    /**
+     * Emits the ids of the beers that were updated, the others do not exist.
+     */
+    private Mono<List<Integer>> write(Map<Integer, PendingDelta> drained) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Integer> beerIds = new ArrayList<>(drained.keySet());
+
+        return this.databaseClient.inConnectionMany(connection -> {
+                    Statement statement = connection.createStatement(ADJUST_STOCK);
+                    for (int i = 0; i < beerIds.size(); i++) {
+                        if (i > 0) {
+                            statement.add();
+                        }
+                        statement.bind("$1", drained.get(beerIds.get(i)).delta())
+                                .bind("$2", now)
+                                .bind("$3", beerIds.get(i));
+                    }
+                    // one result per binding, in binding order
+                    return Flux.from(statement.execute())
+                            .concatMap(Result::getRowsUpdated);
+                })
+                .as(this.transactionalOperator::transactional)
+                .index()
+                .filter(rows -> rows.getT2() > 0)
+                .map(rows -> beerIds.get(rows.getT1().intValue()))
+                .collectList();
+    }
+
+    private record PendingDelta(long delta, long events) {
+        PendingDelta plus(PendingDelta other) {
+            return new PendingDelta(this.delta + other.delta, this.events + other.events);
+        }
+    }
+}
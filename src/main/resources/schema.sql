@@ -10,10 +10,18 @@ CREATE TABLE if NOT EXISTS beer
     last_modified_date timestamp
 );
 
+CREATE INDEX if NOT EXISTS beer_name_idx ON beer (beer_name);
+CREATE INDEX if NOT EXISTS beer_style_idx ON beer (beer_style);
+CREATE INDEX if NOT EXISTS beer_upc_idx ON beer (upc);
+CREATE INDEX if NOT EXISTS beer_price_idx ON beer (price);
+CREATE INDEX if NOT EXISTS beer_last_modified_date_idx ON beer (last_modified_date);
+
 CREATE TABLE if NOT EXISTS customer
 (
     id                 integer NOT NULL PRIMARY KEY AUTO_INCREMENT,
     customer_name      varchar(255),
     created_date       timestamp,
     last_modified_date timestamp
-);
\ No newline at end of file
+);
+
+CREATE INDEX if NOT EXISTS customer_last_modified_date_idx ON customer (last_modified_date);
\ No newline at end of file
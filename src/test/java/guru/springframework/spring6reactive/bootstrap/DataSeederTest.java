@@ -0,0 +1,52 @@
+package guru.springframework.spring6reactive.bootstrap;
+
+import guru.springframework.spring6reactive.repositories.BeerRepository;
+import guru.springframework.spring6reactive.repositories.CustomerRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.r2dbc.url=r2dbc:h2:mem:///seeddb?options=DB_CLOSE_DELAY=-1",
+        "app.seed.beers=2500",
+        "app.seed.customers=1200",
+        "app.seed.batch-size=1000"
+})
+@AutoConfigureWebTestClient
+@ActiveProfiles("seed")
+class DataSeederTest {
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Test
+    void testSeededBeforeStartupCompletes() {
+        // the sample rows plus every generated row, committed before the context was handed out
+        assertThat(this.beerRepository.count().block()).isEqualTo(3 + 2500);
+        assertThat(this.customerRepository.count().block()).isEqualTo(3 + 1200);
+        assertThat(this.beerRepository.findById(3 + 2500).block())
+                .satisfies(beer -> assertThat(beer.getBeerStyle()).isNotBlank());
+    }
+
+    @Test
+    void testReadinessProbeAnsweredWithoutToken() {
+        this.webTestClient.get().uri("/actuator/health/readiness")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("UP");
+        this.webTestClient.get().uri("/actuator/health/liveness")
+                .exchange()
+                .expectStatus().isOk();
+    }
+}
@@ -0,0 +1,120 @@
+package guru.springframework.spring6reactive.config;
+
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachingReactiveJwtDecoderTest {
+    final AtomicInteger jwkSetRequests = new AtomicInteger();
+    final AtomicReference<RSAKey> signingKey = new AtomicReference<>();
+    final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    DisposableServer jwkServer;
+    RefreshingJwkSource jwkSource;
+    CachingReactiveJwtDecoder decoder;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        this.signingKey.set(new RSAKeyGenerator(2048).keyID("key-1").generate());
+        this.jwkServer = HttpServer.create()
+                .port(0)
+                .route(routes -> routes.get("/oauth2/jwks", (request, response) -> {
+                    this.jwkSetRequests.incrementAndGet();
+                    return response.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .sendString(Mono.just(new JWKSet(this.signingKey.get()).toString()));
+                }))
+                .bindNow();
+
+        this.jwkSource = new RefreshingJwkSource(WebClient.create(),
+                "http://localhost:" + this.jwkServer.port() + "/oauth2/jwks", Duration.ofMinutes(5),
+                Duration.ofSeconds(30), Clock.systemUTC());
+        this.decoder = new CachingReactiveJwtDecoder(NimbusReactiveJwtDecoder.withJwkSource(this.jwkSource).build(),
+                100, Duration.ofMinutes(10), Clock.systemUTC(), this.meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.jwkSource.stop();
+        this.jwkServer.disposeNow();
+    }
+
+    @Test
+    void testValidatedTokenIsCached() {
+        this.jwkSource.refresh().block();
+        String token = sign(this.signingKey.get());
+
+        Jwt first = this.decoder.decode(token).block();
+        Jwt second = this.decoder.decode(token).block();
+
+        assertThat(second).isSameAs(first);
+        assertThat(second.getSubject()).isEqualTo("client-1");
+        assertThat(this.jwkSetRequests).hasValue(1);
+        assertThat(this.meterRegistry.get("jwt.verification").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testUnknownKeyReloadsJwkSet() throws Exception {
+        this.jwkSource.refresh().block();
+        RSAKey rotatedKey = new RSAKeyGenerator(2048).keyID("key-2").generate();
+        this.signingKey.set(rotatedKey);
+
+        Jwt jwt = this.decoder.decode(sign(rotatedKey)).block();
+
+        assertThat(jwt.getSubject()).isEqualTo("client-1");
+        assertThat(this.jwkSetRequests).hasValue(2);
+    }
+
+    @Test
+    void testUnknownKeysReloadJwkSetOncePerInterval() throws Exception {
+        this.jwkSource.refresh().block();
+
+        for (int i = 0; i < 5; i++) {
+            RSAKey forgedKey = new RSAKeyGenerator(2048).keyID("forged-" + i).generate();
+            StepVerifier.create(this.decoder.decode(sign(forgedKey)))
+                    .expectError(JwtException.class)
+                    .verify();
+        }
+
+        assertThat(this.jwkSetRequests).hasValue(2);
+    }
+
+    private static String sign(RSAKey key) {
+        NimbusJwtEncoder encoder = new NimbusJwtEncoder(new ImmutableJWKSet<>(new JWKSet(key)));
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .subject("client-1")
+                .issuedAt(Instant.now())
+                .expiresAt(Instant.now().plusSeconds(300))
+                .build();
+
+        return encoder.encode(JwtEncoderParameters.from(
+                JwsHeader.with(SignatureAlgorithm.RS256).keyId(key.getKeyID()).build(), claims)).getTokenValue();
+    }
+}
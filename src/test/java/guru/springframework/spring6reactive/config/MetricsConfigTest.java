@@ -0,0 +1,47 @@
+package guru.springframework.spring6reactive.config;
+
+import guru.springframework.spring6reactive.controllers.BeerController;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.mockOAuth2Login;
+
+@SpringBootTest
+@AutoConfigureWebTestClient
+@AutoConfigureObservability(tracing = false)
+class MetricsConfigTest {
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Test
+    void testPrometheusEndpointExposesRouteServiceEventLoopAndRateLimitMetrics() {
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(BeerController.BEER_PATH_ID, 2)
+                .exchange()
+                .expectStatus().isOk();
+
+        // scraped the way Prometheus does, without credentials
+        String scrape = this.webTestClient
+                .get().uri("/actuator/prometheus")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(scrape)
+                .contains("http_server_requests_seconds_bucket{")
+                .contains("uri=\"/api/v2/beer/{beerId}\"")
+                .contains("service_flow_duration_seconds_bucket{")
+                .contains("method=\"getBeerById\"")
+                .contains("le=\"0.025\"")
+                .contains("netty_eventloop_pending_tasks{")
+                .contains("rate_limit_requests_total{client=\"user\",outcome=\"allowed\"");
+    }
+}
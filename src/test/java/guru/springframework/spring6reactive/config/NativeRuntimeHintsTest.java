@@ -0,0 +1,51 @@
+package guru.springframework.spring6reactive.config;
+
+import guru.springframework.spring6reactive.domain.BeerStyleStats;
+import guru.springframework.spring6reactive.model.BeerDTO;
+import guru.springframework.spring6reactive.model.BeerFilterDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NativeRuntimeHintsTest {
+    final RuntimeHints hints = new RuntimeHints();
+
+    @BeforeEach
+    void setUp() {
+        new NativeRuntimeHints().registerHints(this.hints, getClass().getClassLoader());
+    }
+
+    @Test
+    void testSchemaIsRegisteredAsResource() {
+        assertThat(RuntimeHintsPredicates.resource().forResource("schema.sql")).accepts(this.hints);
+    }
+
+    @Test
+    void testBoundTypesAreRegisteredForReflection() throws Exception {
+        assertThat(RuntimeHintsPredicates.reflection().onType(BeerDTO.class)).accepts(this.hints);
+        assertThat(RuntimeHintsPredicates.reflection().onMethod(BeerFilterDTO.class.getMethod("setBeerStyle",
+                String.class))).accepts(this.hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(BeerStyleStats.class)
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS)).accepts(this.hints);
+    }
+
+    @Test
+    void testDriversAndCachesAreRegistered() {
+        assertThat(RuntimeHintsPredicates.reflection()
+                .onType(TypeReference.of("com.github.benmanes.caffeine.cache.SSSMSW"))
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS)).accepts(this.hints);
+        assertThat(RuntimeHintsPredicates.reflection()
+                .onType(TypeReference.of("com.github.benmanes.caffeine.cache.SSSMSA"))
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS)).accepts(this.hints);
+        assertThat(RuntimeHintsPredicates.reflection()
+                .onType(TypeReference.of("com.github.benmanes.caffeine.cache.PSAMS"))
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS)).accepts(this.hints);
+        assertThat(RuntimeHintsPredicates.reflection()
+                .onType(TypeReference.of("io.r2dbc.h2.H2ConnectionFactoryProvider"))).accepts(this.hints);
+    }
+}
@@ -0,0 +1,130 @@
+package guru.springframework.spring6reactive.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitWebFilterTest {
+    final AtomicLong nanoTime = new AtomicLong();
+    final AtomicInteger passed = new AtomicInteger();
+    final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // 10 tokens in a burst, one more every 100ms; listing beers costs 5
+    final RateLimitWebFilter filter = new RateLimitWebFilter(10, 10, 100, 1,
+            List.of(RateLimitWebFilter.RouteCost.of(HttpMethod.GET, "/api/v2/beer", 5)),
+            this.nanoTime::get, this.meterRegistry);
+
+    @Test
+    void testBurstThenRejectedUntilRefilled() {
+        for (int i = 0; i < 10; i++) {
+            assertThat(exchange("client-1", "/api/v2/beer/1").getResponse().getStatusCode()).isNull();
+        }
+
+        MockServerWebExchange rejected = exchange("client-1", "/api/v2/beer/1");
+        assertThat(rejected.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(this.passed).hasValue(10);
+
+        this.nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(exchange("client-1", "/api/v2/beer/1").getResponse().getStatusCode()).isNull();
+        assertThat(this.passed).hasValue(11);
+
+        assertThat(this.meterRegistry.get("rate.limit.requests")
+                .tag("client", "client-1").tag("outcome", "allowed").counter().count()).isEqualTo(11);
+        assertThat(this.meterRegistry.get("rate.limit.requests")
+                .tag("client", "client-1").tag("outcome", "rejected").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testListingCostsMoreAndClientsAreSeparate() {
+        assertThat(exchange("client-1", "/api/v2/beer").getResponse().getStatusCode()).isNull();
+        assertThat(exchange("client-1", "/api/v2/beer").getResponse().getStatusCode()).isNull();
+        assertThat(exchange("client-1", "/api/v2/beer/1").getResponse().getStatusCode())
+                .isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+
+        assertThat(exchange("client-2", "/api/v2/beer").getResponse().getStatusCode()).isNull();
+        assertThat(this.passed).hasValue(3);
+    }
+
+    @Test
+    void testCountersRemovedWithExpiredBucket() {
+        exchange("client-1", "/api/v2/beer/1");
+        exchange("client-1", "/api/v2/beer/1");
+
+        // idle until full again, the bucket expires and its counters go with it
+        this.nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        exchange("client-1", "/api/v2/beer/1");
+
+        assertThat(this.meterRegistry.find("rate.limit.requests")
+                .tag("client", "client-1").tag("outcome", "allowed").counters())
+                .singleElement()
+                .satisfies(counter -> assertThat(counter.count()).isEqualTo(1));
+    }
+
+    @Test
+    void testClientIdClaimPreferredOverSubject() {
+        Jwt jwt = Jwt.withTokenValue("token")
+                .header("alg", "RS256")
+                .subject("user-1")
+                .claim("client_id", "integration-1")
+                .issuedAt(Instant.now())
+                .build();
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/v2/beer/1"));
+
+        this.filter.filter(exchange, ignored -> Mono.empty())
+                .contextWrite(authenticatedAs(jwt))
+                .block();
+
+        assertThat(this.meterRegistry.get("rate.limit.requests")
+                .tag("client", "integration-1").tag("outcome", "allowed").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testUnauthenticatedPassesThrough() {
+        for (int i = 0; i < 20; i++) {
+            MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/v2/beer"));
+            this.filter.filter(exchange, ignored -> count()).block();
+        }
+
+        assertThat(this.passed).hasValue(20);
+    }
+
+    private MockServerWebExchange exchange(String subject, String path) {
+        Jwt jwt = Jwt.withTokenValue("token")
+                .header("alg", "RS256")
+                .subject(subject)
+                .issuedAt(Instant.now())
+                .build();
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(path));
+
+        this.filter.filter(exchange, ignored -> count())
+                .contextWrite(authenticatedAs(jwt))
+                .block();
+        return exchange;
+    }
+
+    private static Context authenticatedAs(Jwt jwt) {
+        return ReactiveSecurityContextHolder.withAuthentication(new JwtAuthenticationToken(jwt, List.of()));
+    }
+
+    private Mono<Void> count() {
+        return Mono.fromRunnable(this.passed::incrementAndGet);
+    }
+}
@@ -1,8 +1,25 @@
 package guru.springframework.spring6reactive.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import guru.springframework.spring6reactive.config.CodecConfig;
 import guru.springframework.spring6reactive.domain.Beer;
+import guru.springframework.spring6reactive.model.BatchOperationType;
+import guru.springframework.spring6reactive.model.BeerBatchOperationDTO;
+import guru.springframework.spring6reactive.model.BeerBatchRequestDTO;
 import guru.springframework.spring6reactive.model.BeerDTO;
+import guru.springframework.spring6reactive.model.BeerStyleStatsDTO;
+import guru.springframework.spring6reactive.model.ChangeEventDTO;
+import guru.springframework.spring6reactive.model.ChangeType;
+import guru.springframework.spring6reactive.model.LookupRequestDTO;
+import guru.springframework.spring6reactive.model.StockAdjustmentDTO;
 import guru.springframework.spring6reactive.repositories.BeerRepositoryTest;
+import guru.springframework.spring6reactive.services.BeerService;
+import guru.springframework.spring6reactive.services.ChangeFeed;
+import guru.springframework.spring6reactive.services.StockEventBuffer;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
@@ -10,9 +27,23 @@ import org.junit.jupiter.api.TestMethodOrder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.mockOAuth2Login;
 
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
@@ -22,6 +53,24 @@ class BeerControllerTest {
     @Autowired
     WebTestClient webTestClient;
 
+    @Autowired
+    StockEventBuffer stockEventBuffer;
+
+    @Autowired
+    ChangeFeed<BeerDTO> beerChangeFeed;
+
+    @Autowired
+    BeerService beerService;
+
+    @Autowired
+    AsyncCache<Integer, BeerDTO> beerCache;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    final ObjectMapper cborMapper = new CBORMapper().findAndRegisterModules();
+    final ObjectMapper smileMapper = new SmileMapper().findAndRegisterModules();
+
     @Test
     void testDeleteNotFound() {
         this.webTestClient
@@ -50,6 +99,50 @@ class BeerControllerTest {
                 .delete().uri(BeerController.BEER_PATH_ID, 1)
                 .exchange()
                 .expectStatus().isNoContent();
+
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(BeerController.BEER_PATH_ID, 1)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @Order(1000)
+    void testStreamBeerChangesResumed() {
+        Flux<ServerSentEvent<ChangeEventDTO<BeerDTO>>> changes = this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(BeerController.BEER_CHANGES_PATH + "?id=1")
+                .header(ChangeStreams.LAST_EVENT_ID_HEADER,
+                        new ChangeFeed.EventId(this.beerChangeFeed.getEpoch(), 0).toString())
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<ChangeEventDTO<BeerDTO>>>() {
+                })
+                .getResponseBody();
+
+        // replays the updates of the earlier tests, the delete carries the row as it was deleted
+        StepVerifier.create(changes)
+                .thenConsumeWhile(change -> !ChangeType.DELETED.name().equals(change.event()),
+                        change -> assertThat(change.data().getId()).isEqualTo(1))
+                .assertNext(change -> {
+                    assertThat(change.id()).isEqualTo(this.beerChangeFeed.getEpoch() + "-" + change.data().getSequence());
+                    assertThat(change.data().getData().getBeerName()).isEqualTo("Patched Beer");
+                })
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void testStreamBeerChangesBadLastEventId() {
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(BeerController.BEER_CHANGES_PATH)
+                .header(ChangeStreams.LAST_EVENT_ID_HEADER, "latest")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isBadRequest();
     }
 
     @Test
@@ -149,4 +242,617 @@ class BeerControllerTest {
                 .expectHeader().valueEquals("Content-Type", "application/json")
                 .expectBody().jsonPath("$.size()").isEqualTo(3);
     }
-}
\ No newline at end of file
+
+    @Test
+    @Order(2)
+    void testListBeersPaged() {
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(uriBuilder -> uriBuilder.path(BeerController.BEER_PATH)
+                        .queryParam("limit", 2)
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(CursorPaging.NEXT_CURSOR_HEADER, "2")
+                .expectBody().jsonPath("$.size()").isEqualTo(2);
+
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(uriBuilder -> uriBuilder.path(BeerController.BEER_PATH)
+                        .queryParam("after", 2)
+                        .queryParam("limit", 2)
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist(CursorPaging.NEXT_CURSOR_HEADER)
+                .expectBody().jsonPath("$.size()").isEqualTo(1)
+                .jsonPath("$[0].id").isEqualTo(3);
+    }
+
+    @Test
+    @Order(2)
+    void testListBeerFields() {
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(uriBuilder -> uriBuilder.path(BeerController.BEER_PATH)
+                        .queryParam("fields", "beerName,price")
+                        .queryParam("beerStyle", "Pale Ale")
+                        .queryParam("limit", 1)
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(CursorPaging.NEXT_CURSOR_HEADER, "1")
+                .expectBody()
+                .jsonPath("$.size()").isEqualTo(1)
+                .jsonPath("$[0].id").isEqualTo(1)
+                .jsonPath("$[0].beerName").isEqualTo("Galaxy Cat")
+                .jsonPath("$[0].price").exists()
+                .jsonPath("$[0].beerStyle").doesNotExist()
+                .jsonPath("$[0].createdDate").doesNotExist();
+    }
+
+    @Test
+    @Order(2)
+    void testStreamBeerFieldsNdjson() {
+        Flux<Map<String, Object>> beers = this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(BeerController.BEER_PATH + "?fields=quantityOnHand")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(new ParameterizedTypeReference<Map<String, Object>>() {
+                })
+                .getResponseBody();
+
+        StepVerifier.create(beers)
+                .assertNext(beer -> assertThat(beer).containsOnlyKeys("id", "quantityOnHand"))
+                .expectNextCount(2)
+                .verifyComplete();
+    }
+
+    @Test
+    void testListBeerFieldsUnknownField() {
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(BeerController.BEER_PATH + "?fields=beerName,secretRecipe")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @Order(2)
+    void testGetBeersByIds() {
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(BeerController.BEER_PATH + "?ids=3,999,1,3")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.found.size()").isEqualTo(2)
+                .jsonPath("$.found.1.beerName").isEqualTo("Galaxy Cat")
+                .jsonPath("$.found.3.beerName").isEqualTo("Sunshine City")
+                .jsonPath("$.missing.size()").isEqualTo(1)
+                .jsonPath("$.missing[0]").isEqualTo(999);
+    }
+
+    @Test
+    @Order(2)
+    void testLookupBeers() {
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .post().uri(BeerController.BEER_LOOKUP_PATH)
+                .bodyValue(LookupRequestDTO.builder()
+                        .ids(List.of(2, 1000, 1001))
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.found.2.beerName").isEqualTo("Crank")
+                .jsonPath("$.missing.size()").isEqualTo(2)
+                .jsonPath("$.missing[1]").isEqualTo(1001);
+    }
+
+    @Test
+    void testLookupBeersEmpty() {
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .post().uri(BeerController.BEER_LOOKUP_PATH)
+                .bodyValue(LookupRequestDTO.builder()
+                        .ids(List.of())
+                        .build())
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void testListBeersInvalidLimit() {
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(uriBuilder -> uriBuilder.path(BeerController.BEER_PATH)
+                        .queryParam("limit", 0)
+                        .build())
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @Order(2)
+    void testStreamBeersNdjson() {
+        Flux<BeerDTO> beers = this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(BeerController.BEER_PATH)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_NDJSON)
+                .returnResult(BeerDTO.class)
+                .getResponseBody();
+
+        StepVerifier.create(beers)
+                .expectNextCount(3)
+                .verifyComplete();
+    }
+
+    @Test
+    @Order(Integer.MAX_VALUE)
+    void testExecuteBatch() {
+        BeerDTO beer = BeerDTO.builder()
+                .beerName("Batch Beer")
+                .beerStyle("Lager")
+                .upc("98765")
+                .build();
+
+        BeerBatchRequestDTO batchRequest = BeerBatchRequestDTO.builder()
+                .operations(List.of(
+                        BeerBatchOperationDTO.builder().operation(BatchOperationType.CREATE).beer(beer).build(),
+                        BeerBatchOperationDTO.builder().operation(BatchOperationType.UPDATE).id(2).beer(beer).build(),
+                        BeerBatchOperationDTO.builder().operation(BatchOperationType.DELETE).id(999).build()))
+                .build();
+
+        // warm the cache so the batch has to evict the entry
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(BeerController.BEER_PATH_ID, 2)
+                .exchange()
+                .expectStatus().isOk();
+
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .post().uri(BeerController.BEER_BATCH_PATH)
+                .body(Mono.just(batchRequest), BeerBatchRequestDTO.class)
+                .header("Content-Type", "application/json")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.size()").isEqualTo(3)
+                .jsonPath("$[0].status").isEqualTo("CREATED")
+                .jsonPath("$[0].id").isNotEmpty()
+                .jsonPath("$[1].status").isEqualTo("UPDATED")
+                .jsonPath("$[2].index").isEqualTo(2)
+                .jsonPath("$[2].status").isEqualTo("NOT_FOUND");
+
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(BeerController.BEER_PATH_ID, 2)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.beerName").isEqualTo("Batch Beer");
+    }
+
+    @Test
+    void testConcurrentMissesShareOneQuery() {
+        this.beerCache.synchronous().invalidate(3);
+        long queries = this.meterRegistry.get("batch.loader.batch.size").tag("loader", "beer").summary().count();
+        double misses = cacheGets("beerCache", "miss");
+        double hits = cacheGets("beerCache", "hit");
+
+        List<BeerDTO> beers = Flux.range(0, 10)
+                .flatMap(i -> this.beerService.getBeerById(3))
+                .collectList()
+                .block();
+
+        assertThat(beers).hasSize(10).extracting(BeerDTO::getId).containsOnly(3);
+        assertThat(this.meterRegistry.get("batch.loader.batch.size").tag("loader", "beer").summary().count())
+                .isEqualTo(queries + 1);
+        // the first caller misses, the others join its lookup
+        assertThat(cacheGets("beerCache", "miss")).isEqualTo(misses + 1);
+        assertThat(cacheGets("beerCache", "hit")).isEqualTo(hits + 9);
+    }
+
+    @Test
+    @Order(Integer.MAX_VALUE)
+    void testReadsAfterWritesSeeNewState() {
+        URI location = this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .post().uri(BeerController.BEER_PATH)
+                .body(Mono.just(BeerRepositoryTest.getTestBeer()), BeerDTO.class)
+                .header("Content-Type", "application/json")
+                .exchange()
+                .expectStatus().isCreated()
+                .returnResult(Void.class)
+                .getResponseHeaders().getLocation();
+        assertThat(location).isNotNull();
+        String path = location.getPath();
+        assertThat(getBeer(path).getBeerName()).isEqualTo("Space Dust");
+
+        Beer updated = BeerRepositoryTest.getTestBeer();
+        updated.setBeerName("Updated Dust");
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .put().uri(path)
+                .body(Mono.just(updated), BeerDTO.class)
+                .header("Content-Type", "application/json")
+                .exchange()
+                .expectStatus().isNoContent();
+        assertThat(getBeer(path).getBeerName()).isEqualTo("Updated Dust");
+
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .patch().uri(path)
+                .body(Mono.just(BeerDTO.builder().beerName("Patched Dust").build()), BeerDTO.class)
+                .header("Content-Type", "application/json")
+                .exchange()
+                .expectStatus().isOk();
+        assertThat(getBeer(path).getBeerName()).isEqualTo("Patched Dust");
+
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .delete().uri(path)
+                .exchange()
+                .expectStatus().isNoContent();
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(path)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void testCacheMetrics() {
+        this.beerCache.synchronous().invalidate(2);
+        double misses = cacheGets("beerCache", "miss");
+        double hits = cacheGets("beerCache", "hit");
+
+        getBeer(BeerController.BEER_PATH + "/2");
+        getBeer(BeerController.BEER_PATH + "/2");
+
+        assertThat(cacheGets("beerCache", "miss")).isEqualTo(misses + 1);
+        assertThat(cacheGets("beerCache", "hit")).isEqualTo(hits + 1);
+        assertThat(this.meterRegistry.find("cache.evictions").tag("cache", "beerCache").functionCounter())
+                .isNotNull();
+    }
+
+    @Test
+    void testExecuteBatchMissingId() {
+        BeerBatchRequestDTO batchRequest = BeerBatchRequestDTO.builder()
+                .operations(List.of(BeerBatchOperationDTO.builder().operation(BatchOperationType.DELETE).build()))
+                .build();
+
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .post().uri(BeerController.BEER_BATCH_PATH)
+                .body(Mono.just(batchRequest), BeerBatchRequestDTO.class)
+                .header("Content-Type", "application/json")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @Order(5)
+    void testPatchBeer() {
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .patch().uri(BeerController.BEER_PATH_ID, 1)
+                .body(Mono.just(BeerDTO.builder()
+                        .beerName("Patched Beer")
+                        .price(new BigDecimal("6"))
+                        .build()), BeerDTO.class)
+                .header("Content-Type", "application/json")
+                .exchange()
+                .expectStatus().isOk();
+
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(BeerController.BEER_PATH_ID, 1)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.beerName").isEqualTo("Patched Beer")
+                .jsonPath("$.beerStyle").isEqualTo(BeerRepositoryTest.getTestBeer().getBeerStyle())
+                .jsonPath("$.price").isEqualTo(6);
+    }
+
+    @Test
+    @Order(2)
+    void testListBeersFiltered() {
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(uriBuilder -> uriBuilder.path(BeerController.BEER_PATH)
+                        .queryParam("beerStyle", "Pale Ale")
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.size()").isEqualTo(2);
+
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(uriBuilder -> uriBuilder.path(BeerController.BEER_PATH)
+                        .queryParam("beerName", "ank")
+                        .queryParam("nameMatch", "CONTAINS")
+                        .queryParam("inStock", true)
+                        .queryParam("maxPrice", 12)
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.size()").isEqualTo(1)
+                .jsonPath("$[0].beerName").isEqualTo("Crank");
+
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(uriBuilder -> uriBuilder.path(BeerController.BEER_PATH)
+                        .queryParam("beerName", "ank")
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.size()").isEqualTo(0);
+    }
+
+    @Test
+    @Order(2)
+    void testGetByIdNotModified() {
+        String eTag = this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(BeerController.BEER_PATH_ID, 2)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(HttpHeaders.LAST_MODIFIED)
+                .returnResult(BeerDTO.class)
+                .getResponseHeaders().getETag();
+
+        assertThat(eTag).isNotNull();
+
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(BeerController.BEER_PATH_ID, 2)
+                .ifNoneMatch(eTag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    @Order(2)
+    void testGetByIdValidatorsPerFormat() {
+        String jsonETag = this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(BeerController.BEER_PATH_ID, 2)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .returnResult(BeerDTO.class)
+                .getResponseHeaders().getETag();
+        String cborETag = this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(BeerController.BEER_PATH_ID, 2)
+                .accept(MediaType.APPLICATION_CBOR)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .returnResult(byte[].class)
+                .getResponseHeaders().getETag();
+
+        assertThat(cborETag).isNotEqualTo(jsonETag);
+
+        // a cached JSON body must not be revalidated for a CBOR client
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(BeerController.BEER_PATH_ID, 2)
+                .accept(MediaType.APPLICATION_CBOR)
+                .ifNoneMatch(jsonETag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_CBOR);
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(BeerController.BEER_PATH)
+                .accept(MediaType.APPLICATION_CBOR)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+    }
+
+    @Test
+    @Order(2)
+    void testListBeersNotModified() {
+        String eTag = this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(BeerController.BEER_PATH)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(BeerDTO.class)
+                .getResponseHeaders().getETag();
+
+        assertThat(eTag).isNotNull();
+
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(BeerController.BEER_PATH)
+                .ifNoneMatch(eTag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    @Order(2)
+    void testGetBeerStyleStats() {
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(BeerController.BEER_STATS_PATH)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.size()").isEqualTo(2)
+                .jsonPath("$[0].beerStyle").isEqualTo("IPA")
+                .jsonPath("$[0].beerCount").isEqualTo(1)
+                .jsonPath("$[1].beerStyle").isEqualTo("Pale Ale")
+                .jsonPath("$[1].beerCount").isEqualTo(2)
+                .jsonPath("$[1].totalStock").isEqualTo(514);
+    }
+
+    @Test
+    @Order(2)
+    void testGetBeerStyleStatsLowStock() {
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(uriBuilder -> uriBuilder.path(BeerController.BEER_STATS_PATH)
+                        .queryParam("lowStockThreshold", 130)
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.size()").isEqualTo(1)
+                .jsonPath("$[0].beerStyle").isEqualTo("Pale Ale")
+                .jsonPath("$[0].beerCount").isEqualTo(1)
+                .jsonPath("$[0].totalStock").isEqualTo(122);
+    }
+
+    @Test
+    @Order(6)
+    void testAdjustStock() {
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .post().uri(BeerController.BEER_STOCK_PATH, 3)
+                .body(Mono.just(StockAdjustmentDTO.builder().delta(10).build()), StockAdjustmentDTO.class)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.quantityOnHand").isEqualTo(154);
+
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .post().uri(BeerController.BEER_STOCK_PATH, 3)
+                .body(Mono.just(StockAdjustmentDTO.builder().delta(-154).build()), StockAdjustmentDTO.class)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.quantityOnHand").isEqualTo(0);
+    }
+
+    @Test
+    @Order(7)
+    void testAdjustStockNotEnoughStock() {
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .post().uri(BeerController.BEER_STOCK_PATH, 3)
+                .body(Mono.just(StockAdjustmentDTO.builder().delta(-1).build()), StockAdjustmentDTO.class)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @Test
+    void testAdjustStockNotFound() {
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .post().uri(BeerController.BEER_STOCK_PATH, 999)
+                .body(Mono.just(StockAdjustmentDTO.builder().delta(1).build()), StockAdjustmentDTO.class)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @Order(8)
+    void testIngestStockEvents() {
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .post().uri(BeerController.BEER_STOCK_EVENTS_PATH)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue("""
+                        {"beerId":2,"delta":5}
+                        {"beerId":2,"delta":5}
+                        {"beerId":2,"delta":-2}
+                        """)
+                .exchange()
+                .expectStatus().isAccepted()
+                .expectBody().jsonPath("$.accepted").isEqualTo(3);
+
+        this.stockEventBuffer.flush().block();
+
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(BeerController.BEER_PATH_ID, 2)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.quantityOnHand").isEqualTo(400);
+    }
+
+    @Test
+    void testIngestStockEventsBadData() {
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .post().uri(BeerController.BEER_STOCK_EVENTS_PATH)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue("{\"beerId\":2}\n")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @Order(1)
+    void testGetByIdCbor() throws IOException {
+        byte[] body = this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(BeerController.BEER_PATH_ID, 1)
+                .accept(MediaType.APPLICATION_CBOR)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_CBOR)
+                .expectBody(byte[].class)
+                .returnResult().getResponseBody();
+
+        assertThat(this.cborMapper.readValue(body, BeerDTO.class).getBeerName()).isEqualTo("Galaxy Cat");
+    }
+
+    @Test
+    void testGetBeerStyleStatsCbor() throws IOException {
+        byte[] body = this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(BeerController.BEER_STATS_PATH)
+                .accept(MediaType.APPLICATION_CBOR)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(byte[].class)
+                .returnResult().getResponseBody();
+
+        assertThat(this.cborMapper.readValue(body, BeerStyleStatsDTO[].class)).isNotEmpty();
+    }
+
+    @Test
+    @Order(Integer.MAX_VALUE)
+    void testCreateBeerSmile() throws IOException {
+        byte[] body = this.smileMapper.writeValueAsBytes(BeerRepositoryTest.getTestBeer());
+
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .post().uri(BeerController.BEER_PATH)
+                .contentType(CodecConfig.APPLICATION_SMILE)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isCreated();
+    }
+
+    private BeerDTO getBeer(String path) {
+        return this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(path)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(BeerDTO.class)
+                .returnResult().getResponseBody();
+    }
+
+    private double cacheGets(String cache, String result) {
+        return this.meterRegistry.get("cache.gets").tag("cache", cache).tag("result", result)
+                .functionCounter().count();
+    }
+}
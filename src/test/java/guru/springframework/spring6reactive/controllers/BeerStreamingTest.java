@@ -0,0 +1,112 @@
+package guru.springframework.spring6reactive.controllers;
+
+import guru.springframework.spring6reactive.model.BeerDTO;
+import guru.springframework.spring6reactive.services.BeerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+
+/**
+ * Streams a million beers to a client that stops reading, against a database of its own. While the
+ * client does not read, the rows requested from R2DBC stay far below the table size and every request
+ * asks for at most {@link BeerController#STREAM_PREFETCH} of them.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.r2dbc.url=r2dbc:h2:mem:///streamdb?options=DB_CLOSE_DELAY=-1")
+class BeerStreamingTest {
+    static final int ROWS = 1_000_000;
+    static final String TOKEN = "valid-token";
+    static final List<String> FILTER_INDEXES = List.of("beer_name_idx", "beer_style_idx", "beer_upc_idx",
+            "beer_price_idx", "beer_last_modified_date_idx");
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    DatabaseClient databaseClient;
+
+    @SpyBean
+    BeerService beerService;
+
+    @MockBean
+    ReactiveJwtDecoder jwtDecoder;
+
+    final List<Long> requests = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        this.databaseClient.sql("SELECT COUNT(*) FROM beer")
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .filter(count -> count < ROWS)
+                // a full listing reads the primary key only, the filter indexes would just slow the seeding down
+                .flatMap(count -> Flux.fromIterable(FILTER_INDEXES)
+                        .concatMap(index -> this.databaseClient.sql("DROP INDEX IF EXISTS " + index).then())
+                        .then(this.databaseClient.sql("""
+                                        INSERT INTO beer (beer_name, beer_style, upc, quantity_on_hand, price)
+                                        SELECT 'Beer ' || x, 'Style ' || MOD(x, 50), CAST(x AS VARCHAR),
+                                            MOD(x, 100), MOD(x, 1000)
+                                        FROM SYSTEM_RANGE(1, :rows)""")
+                                .bind("rows", ROWS)
+                                .then()))
+                .block();
+
+        given(this.jwtDecoder.decode(anyString())).willReturn(Mono.just(Jwt.withTokenValue(TOKEN)
+                .header("alg", "none")
+                .subject("user")
+                .issuedAt(Instant.now())
+                .expiresAt(Instant.now().plusSeconds(60))
+                .build()));
+        willAnswer(invocation -> ((Flux<?>) invocation.callRealMethod()).doOnRequest(this.requests::add))
+                .given(this.beerService).listBeers();
+    }
+
+    @Test
+    void testSlowClientBoundsDatabaseDemand() {
+        Flux<BeerDTO> beers = WebClient.create("http://localhost:" + this.port)
+                .get().uri(BeerController.BEER_PATH)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .headers(headers -> headers.setBearerAuth(TOKEN))
+                .retrieve()
+                .bodyToFlux(BeerDTO.class);
+
+        StepVerifier.create(beers, 100)
+                .expectNextCount(100)
+                // the client stops reading, the socket buffers fill up and the server stops asking for rows
+                .thenAwait(Duration.ofSeconds(1))
+                .then(() -> assertThat(totalRequested()).isLessThan(ROWS / 10))
+                .thenAwait(Duration.ofSeconds(1))
+                .then(() -> assertThat(totalRequested()).isLessThan(ROWS / 10))
+                .thenCancel()
+                .verify(Duration.ofSeconds(30));
+
+        assertThat(this.requests).isNotEmpty().allSatisfy(requested ->
+                assertThat(requested).isLessThanOrEqualTo(BeerController.STREAM_PREFETCH));
+    }
+
+    private long totalRequested() {
+        return this.requests.stream().mapToLong(Long::longValue).sum();
+    }
+}
@@ -0,0 +1,49 @@
+package guru.springframework.spring6reactive.controllers;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.mockOAuth2Login;
+
+@SpringBootTest(properties = {
+        "spring.r2dbc.pool.initial-size=1",
+        "spring.r2dbc.pool.max-size=1",
+        "spring.r2dbc.pool.max-acquire-time=200ms"
+})
+@AutoConfigureWebTestClient
+class ConnectionPoolExhaustionTest {
+    @Autowired
+    WebTestClient webTestClient;
+
+    @Autowired
+    ConnectionFactory connectionFactory;
+
+    @Test
+    void testPoolExhaustedReturnsServiceUnavailable() {
+        Connection held = Mono.from(this.connectionFactory.create()).block();
+
+        try {
+            this.webTestClient
+                    .mutateWith(mockOAuth2Login())
+                    .get().uri(BeerController.BEER_PATH)
+                    .exchange()
+                    .expectStatus().isEqualTo(503)
+                    .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, DataAccessExceptionHandler.RETRY_AFTER_SECONDS);
+        } finally {
+            Mono.from(held.close()).block();
+        }
+
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(BeerController.BEER_PATH)
+                .exchange()
+                .expectStatus().isOk();
+    }
+}
@@ -1,7 +1,10 @@
 package guru.springframework.spring6reactive.controllers;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import guru.springframework.spring6reactive.config.CodecConfig;
 import guru.springframework.spring6reactive.domain.Customer;
 import guru.springframework.spring6reactive.model.CustomerDTO;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
@@ -9,9 +12,14 @@ import org.junit.jupiter.api.TestMethodOrder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.mockOAuth2Login;
 
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
@@ -21,6 +29,12 @@ class CustomerControllerTest {
     @Autowired
     WebTestClient webTestClient;
 
+    @Autowired
+    AsyncCache<Integer, CustomerDTO> customerCache;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
     public static Customer getTestCustomer() {
         return Customer.builder()
                 .customerName("Customer Test")
@@ -47,6 +61,25 @@ class CustomerControllerTest {
                 .expectStatus().isNotFound();
     }
 
+    @Test
+    @Order(2)
+    void testCacheMetrics() {
+        this.customerCache.synchronous().invalidate(2);
+        double misses = cacheGets("miss");
+        double hits = cacheGets("hit");
+
+        for (int i = 0; i < 2; i++) {
+            this.webTestClient
+                    .mutateWith(mockOAuth2Login())
+                    .get().uri(CustomerController.CUSTOMER_PATH_ID, 2)
+                    .exchange()
+                    .expectStatus().isOk();
+        }
+
+        assertThat(cacheGets("miss")).isEqualTo(misses + 1);
+        assertThat(cacheGets("hit")).isEqualTo(hits + 1);
+    }
+
     @Test
     @Order(999)
     void testDeleteCustomer() {
@@ -55,6 +88,12 @@ class CustomerControllerTest {
                 .delete().uri(CustomerController.CUSTOMER_PATH_ID, 1)
                 .exchange()
                 .expectStatus().isNoContent();
+
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(CustomerController.CUSTOMER_PATH_ID, 1)
+                .exchange()
+                .expectStatus().isNotFound();
     }
 
     @Test
@@ -142,6 +181,20 @@ class CustomerControllerTest {
                 .expectBody(CustomerDTO.class);
     }
 
+    @Test
+    @Order(2)
+    void testGetByIdSmile() {
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(CustomerController.CUSTOMER_PATH_ID, 1)
+                .accept(CodecConfig.APPLICATION_SMILE)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(CodecConfig.APPLICATION_SMILE)
+                .expectBody(CustomerDTO.class)
+                .value(customer -> assertThat(customer.getId()).isEqualTo(1));
+    }
+
     @Test
     @Order(1)
     void testListCustomers() {
@@ -153,4 +206,134 @@ class CustomerControllerTest {
                 .expectHeader().valueEquals("Content-Type", "application/json")
                 .expectBody().jsonPath("$.size()").isEqualTo(3);
     }
-}
\ No newline at end of file
+
+    @Test
+    @Order(1)
+    void testListCustomersPaged() {
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(uriBuilder -> uriBuilder.path(CustomerController.CUSTOMER_PATH)
+                        .queryParam("limit", 2)
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(CursorPaging.NEXT_CURSOR_HEADER, "2")
+                .expectBody().jsonPath("$.size()").isEqualTo(2);
+    }
+
+    @Test
+    @Order(1)
+    void testListCustomerFields() {
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(CustomerController.CUSTOMER_PATH + "?fields=customerName")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.size()").isEqualTo(3)
+                .jsonPath("$[0].id").isEqualTo(1)
+                .jsonPath("$[0].customerName").exists()
+                .jsonPath("$[0].lastModifiedDate").doesNotExist();
+    }
+
+    @Test
+    @Order(1)
+    void testGetCustomersByIds() {
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(CustomerController.CUSTOMER_PATH + "?ids=2,42")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.found.2.id").isEqualTo(2)
+                .jsonPath("$.missing.size()").isEqualTo(1)
+                .jsonPath("$.missing[0]").isEqualTo(42);
+    }
+
+    @Test
+    @Order(1)
+    void testStreamCustomersEventStream() {
+        Flux<CustomerDTO> customers = this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(CustomerController.CUSTOMER_PATH)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM)
+                .returnResult(CustomerDTO.class)
+                .getResponseBody();
+
+        StepVerifier.create(customers)
+                .expectNextCount(3)
+                .verifyComplete();
+    }
+
+    @Test
+    @Order(5)
+    void testPatchCustomer() {
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .patch().uri(CustomerController.CUSTOMER_PATH_ID, 1)
+                .body(Mono.just(CustomerDTO.builder().customerName("Customer Patched").build()), CustomerDTO.class)
+                .header("Content-Type", "application/json")
+                .exchange()
+                .expectStatus().isOk();
+
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(CustomerController.CUSTOMER_PATH_ID, 1)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.customerName").isEqualTo("Customer Patched");
+    }
+
+    @Test
+    @Order(1)
+    void testGetByIdNotModified() {
+        String eTag = this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(CustomerController.CUSTOMER_PATH_ID, 2)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(HttpHeaders.LAST_MODIFIED)
+                .returnResult(CustomerDTO.class)
+                .getResponseHeaders().getETag();
+
+        assertThat(eTag).isNotNull();
+
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(CustomerController.CUSTOMER_PATH_ID, 2)
+                .ifNoneMatch(eTag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    @Order(1)
+    void testListCustomersNotModified() {
+        String eTag = this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(CustomerController.CUSTOMER_PATH)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(CustomerDTO.class)
+                .getResponseHeaders().getETag();
+
+        assertThat(eTag).isNotNull();
+
+        this.webTestClient
+                .mutateWith(mockOAuth2Login())
+                .get().uri(CustomerController.CUSTOMER_PATH)
+                .ifNoneMatch(eTag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+    }
+
+    private double cacheGets(String result) {
+        return this.meterRegistry.get("cache.gets").tag("cache", "customerCache").tag("result", result)
+                .functionCounter().count();
+    }
+}
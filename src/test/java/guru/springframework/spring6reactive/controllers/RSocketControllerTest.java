@@ -0,0 +1,190 @@
+package guru.springframework.spring6reactive.controllers;
+
+import guru.springframework.spring6reactive.model.BeerDTO;
+import guru.springframework.spring6reactive.model.CustomerDTO;
+import io.rsocket.RSocket;
+import io.rsocket.metadata.WellKnownMimeType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.rsocket.server.LocalRSocketServerPort;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import org.springframework.messaging.rsocket.RSocketStrategies;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.security.rsocket.metadata.BearerTokenAuthenticationEncoder;
+import org.springframework.security.rsocket.metadata.BearerTokenMetadata;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@SpringBootTest(properties = "spring.r2dbc.url=r2dbc:h2:mem:///rsocketdb?options=DB_CLOSE_DELAY=-1")
+class RSocketControllerTest {
+    static final String TOKEN = "valid-token";
+    static final String SHORT_LIVED_TOKEN = "short-lived-token";
+    static final MimeType AUTHENTICATION_MIME_TYPE =
+            MimeTypeUtils.parseMimeType(WellKnownMimeType.MESSAGE_RSOCKET_AUTHENTICATION.getString());
+
+    @MockBean
+    ReactiveJwtDecoder jwtDecoder;
+
+    @Autowired
+    RSocketRequester.Builder requesterBuilder;
+
+    @Autowired
+    RSocketStrategies rsocketStrategies;
+
+    @LocalRSocketServerPort
+    int port;
+
+    RSocketRequester requester;
+
+    @AfterEach
+    void tearDown() {
+        if (this.requester != null) {
+            this.requester.dispose();
+        }
+    }
+
+    @Test
+    @Order(1)
+    void testGetBeerById() {
+        StepVerifier.create(connect(TOKEN).route(BeerRSocketController.BEER_ROUTE)
+                        .data(1)
+                        .retrieveMono(BeerDTO.class))
+                .assertNext(beer -> assertThat(beer.getBeerName()).isEqualTo("Galaxy Cat"))
+                .verifyComplete();
+    }
+
+    @Test
+    @Order(1)
+    void testGetBeerByIdNotFound() {
+        StepVerifier.create(connect(TOKEN).route(BeerRSocketController.BEER_ROUTE)
+                        .data(999)
+                        .retrieveMono(BeerDTO.class))
+                .verifyComplete();
+    }
+
+    @Test
+    @Order(1)
+    void testListBeers() {
+        StepVerifier.create(connect(TOKEN).route(BeerRSocketController.BEER_LIST_ROUTE)
+                        .retrieveFlux(BeerDTO.class))
+                .expectNextCount(3)
+                .verifyComplete();
+    }
+
+    @Test
+    @Order(1)
+    void testGetCustomerById() {
+        StepVerifier.create(connect(TOKEN).route(CustomerRSocketController.CUSTOMER_ROUTE)
+                        .data(1)
+                        .retrieveMono(CustomerDTO.class))
+                .assertNext(customer -> assertThat(customer.getId()).isEqualTo(1))
+                .verifyComplete();
+    }
+
+    @Test
+    @Order(2)
+    void testUpsertBeers() {
+        BeerDTO created = BeerDTO.builder()
+                .beerName("Channel Beer")
+                .beerStyle("IPA")
+                .upc("123123")
+                .quantityOnHand(10)
+                .price(BigDecimal.TEN)
+                .build();
+        BeerDTO updated = BeerDTO.builder()
+                .id(2)
+                .beerName("Crank Renamed")
+                .beerStyle("Pale Ale")
+                .upc("12356222")
+                .quantityOnHand(392)
+                .price(BigDecimal.TEN)
+                .build();
+
+        StepVerifier.create(connect(TOKEN).route(BeerRSocketController.BEER_UPSERT_ROUTE)
+                        .data(Flux.just(created, updated), BeerDTO.class)
+                        .retrieveFlux(BeerDTO.class))
+                .assertNext(beer -> assertThat(beer.getId()).isEqualTo(4))
+                .assertNext(beer -> assertThat(beer.getBeerName()).isEqualTo("Crank Renamed"))
+                .verifyComplete();
+    }
+
+    @Test
+    @Order(2)
+    void testUpsertCustomersInvalid() {
+        StepVerifier.create(connect(TOKEN).route(CustomerRSocketController.CUSTOMER_UPSERT_ROUTE)
+                        .data(Flux.just(CustomerDTO.builder().customerName("").build()), CustomerDTO.class)
+                        .retrieveFlux(CustomerDTO.class))
+                .expectError()
+                .verify();
+    }
+
+    @Test
+    void testInvalidTokenRejected() {
+        StepVerifier.create(connect("invalid-token").route(BeerRSocketController.BEER_ROUTE)
+                        .data(1)
+                        .retrieveMono(BeerDTO.class))
+                .expectError()
+                .verify();
+    }
+
+    @Test
+    void testConnectionClosedWhenTokenExpires() {
+        RSocketRequester requester = connect(SHORT_LIVED_TOKEN);
+        StepVerifier.create(requester.route(BeerRSocketController.BEER_ROUTE)
+                        .data(3)
+                        .retrieveMono(BeerDTO.class))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        // the connection the request above went over
+        StepVerifier.create(requester.rsocketClient().source().flatMap(RSocket::onClose))
+                .expectComplete()
+                .verify(Duration.ofSeconds(10));
+    }
+
+    private RSocketRequester connect(String token) {
+        given(this.jwtDecoder.decode(anyString())).willReturn(Mono.error(new BadJwtException("invalid")));
+        given(this.jwtDecoder.decode(eq(TOKEN))).willReturn(Mono.just(Jwt.withTokenValue(TOKEN)
+                .header("alg", "RS256")
+                .subject("client-1")
+                .issuedAt(Instant.now())
+                .expiresAt(Instant.now().plusSeconds(60))
+                .build()));
+        given(this.jwtDecoder.decode(eq(SHORT_LIVED_TOKEN))).willReturn(Mono.fromCallable(() ->
+                Jwt.withTokenValue(SHORT_LIVED_TOKEN)
+                        .header("alg", "RS256")
+                        .subject("client-1")
+                        .issuedAt(Instant.now())
+                        .expiresAt(Instant.now().plusSeconds(2))
+                        .build()));
+
+        this.requester = this.requesterBuilder
+                .rsocketStrategies(this.rsocketStrategies.mutate()
+                        .encoder(new BearerTokenAuthenticationEncoder())
+                        .build())
+                .setupMetadata(new BearerTokenMetadata(token), AUTHENTICATION_MIME_TYPE)
+                .tcp("localhost", this.port);
+        return this.requester;
+    }
+}
@@ -8,8 +8,12 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
 import org.springframework.context.annotation.Import;
+import reactor.core.publisher.Flux;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
 
 @DataR2dbcTest
 @Import(DatabaseConfig.class)
@@ -38,4 +42,34 @@ public class BeerRepositoryTest {
         this.beerRepository.save(getTestBeer())
                 .subscribe(beer -> System.out.println(beer.toString()));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testConcurrentStockAdjustmentsLoseNoUpdates() {
+        Beer beer = getTestBeer();
+        // enough stock that the never-negative guard cannot reject any of the -1s, whatever the order
+        beer.setQuantityOnHand(2000);
+        Integer beerId = this.beerRepository.save(beer).map(Beer::getId).block();
+        int adjustments = 4000;
+
+        // 2000 x +2 and 2000 x -1, all in flight at the same time on the connection pool
+        Flux.range(0, adjustments)
+                .flatMap(i -> this.beerRepository.adjustStock(beerId, i % 2 == 0 ? 2 : -1, LocalDateTime.now()),
+                        256)
+                .blockLast();
+
+        assertThat(this.beerRepository.findById(beerId).block().getQuantityOnHand()).isEqualTo(2000 + 2000);
+    }
+
+    @Test
+    void testConcurrentStockAdjustmentsNeverGoNegative() {
+        Integer beerId = this.beerRepository.save(getTestBeer()).map(Beer::getId).block();
+
+        Long applied = Flux.range(0, 1000)
+                .flatMap(i -> this.beerRepository.adjustStock(beerId, -1, LocalDateTime.now()), 256)
+                .count()
+                .block();
+
+        assertThat(applied).isEqualTo(12);
+        assertThat(this.beerRepository.findById(beerId).block().getQuantityOnHand()).isZero();
+    }
+}
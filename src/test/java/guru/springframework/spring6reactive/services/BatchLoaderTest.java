@@ -0,0 +1,98 @@
+package guru.springframework.spring6reactive.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BatchLoaderTest {
+    final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    final List<List<Integer>> queries = new CopyOnWriteArrayList<>();
+    BatchLoader<String> batchLoader;
+
+    @AfterEach
+    void tearDown() {
+        this.batchLoader.close();
+    }
+
+    @Test
+    void testLoadsIdsOfOneWindowWithOneQuery() {
+        this.batchLoader = loader(100, Duration.ofMillis(50), ids -> Flux.fromIterable(ids)
+                .filter(id -> id < 10)
+                .map(id -> id + ":beer"));
+
+        CompletableFuture<String> first = this.batchLoader.load(1);
+        CompletableFuture<String> second = this.batchLoader.load(2);
+        CompletableFuture<String> same = this.batchLoader.load(1);
+        CompletableFuture<String> missing = this.batchLoader.load(99);
+
+        assertThat(first.join()).isEqualTo("1:beer");
+        assertThat(second.join()).isEqualTo("2:beer");
+        assertThat(same.join()).isEqualTo("1:beer");
+        assertThat(missing.join()).isNull();
+        assertThat(this.queries).containsExactly(List.of(1, 2, 99));
+        assertThat(this.meterRegistry.get("batch.loader.coalesced").counter().count()).isEqualTo(1);
+        assertThat(this.meterRegistry.get("batch.loader.batch.size").summary().max()).isEqualTo(3);
+    }
+
+    @Test
+    void testFullBatchIsLoadedBeforeTheWindowEnds() {
+        this.batchLoader = loader(2, Duration.ofHours(1), ids -> Flux.fromIterable(ids)
+                .map(id -> id + ":beer"));
+
+        CompletableFuture<String> first = this.batchLoader.load(1);
+        CompletableFuture<String> second = this.batchLoader.load(2);
+
+        assertThat(CompletableFuture.allOf(first, second)).succeedsWithin(Duration.ofSeconds(5));
+        assertThat(this.queries).containsExactly(List.of(1, 2));
+    }
+
+    @Test
+    void testFailedQueryFailsItsBatchOnly() {
+        this.batchLoader = loader(1, Duration.ofMillis(10), ids -> ids.contains(1)
+                ? Flux.error(new IllegalStateException("connection lost"))
+                : Flux.fromIterable(ids).map(id -> id + ":beer"));
+
+        CompletableFuture<String> failed = this.batchLoader.load(1);
+        assertThatThrownBy(failed::get)
+                .isInstanceOf(ExecutionException.class)
+                .hasRootCauseMessage("connection lost");
+        assertThat(this.batchLoader.load(2).join()).isEqualTo("2:beer");
+    }
+
+    @Test
+    void testCloseFailsUnansweredReads() {
+        // one batch of two in flight that never completes, the next one queued behind it
+        this.batchLoader = new BatchLoader<>("test", 2, Duration.ofHours(1), 1, ids -> Flux.never(),
+                row -> 0, this.meterRegistry);
+        List<CompletableFuture<String>> reads = Flux.range(1, 5)
+                .map(this.batchLoader::load)
+                .collectList()
+                .block();
+
+        this.batchLoader.close();
+
+        // in flight, queued in the sink and still waiting for a batch
+        assertThat(reads).allSatisfy(read -> assertThat(read)
+                .failsWithin(Duration.ofSeconds(5))
+                .withThrowableOfType(ExecutionException.class)
+                .withMessageContaining("closed"));
+    }
+
+    private BatchLoader<String> loader(int maxBatchSize, Duration window, Function<List<Integer>, Flux<String>> rows) {
+        return new BatchLoader<>("test", maxBatchSize, window, 2, ids -> {
+            this.queries.add(ids);
+            return rows.apply(ids);
+        }, row -> Integer.valueOf(row.substring(0, row.indexOf(':'))), this.meterRegistry);
+    }
+}
@@ -0,0 +1,118 @@
+package guru.springframework.spring6reactive.services;
+
+import guru.springframework.spring6reactive.config.DatabaseConfig;
+import guru.springframework.spring6reactive.domain.Beer;
+import guru.springframework.spring6reactive.model.BeerFilterDTO;
+import guru.springframework.spring6reactive.repositories.BeerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.r2dbc.core.StatementMapper;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.relational.core.sql.Expressions;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.PreparedOperation;
+import org.springframework.r2dbc.core.binding.BindTarget;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Plans of the statements {@code listBeers} and the conditional list GET issue, against a table large enough for the planner to
+ * prefer an index over a scan of the primary key.
+ */
+@DataR2dbcTest(properties = "spring.r2dbc.url=r2dbc:h2:mem:///queryplandb?options=DB_CLOSE_DELAY=-1")
+@Import(DatabaseConfig.class)
+class BeerListQueryPlanTest {
+    static final int ROWS = 20000;
+
+    @Autowired
+    R2dbcEntityTemplate entityTemplate;
+
+    @BeforeEach
+    void setUp() {
+        DatabaseClient databaseClient = this.entityTemplate.getDatabaseClient();
+        databaseClient.sql("SELECT COUNT(*) FROM beer")
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .filter(count -> count < ROWS)
+                .flatMap(count -> databaseClient.sql("""
+                                INSERT INTO beer (beer_name, beer_style, upc, quantity_on_hand, price)
+                                SELECT 'Beer ' || x, 'Style ' || MOD(x, 50), CAST(x AS VARCHAR), MOD(x, 100),
+                                    MOD(x, 1000)
+                                FROM SYSTEM_RANGE(1, :rows)""")
+                        .bind("rows", ROWS)
+                        .then()
+                        .then(databaseClient.sql("ANALYZE").then()))
+                .block();
+    }
+
+    @Test
+    void testFirstPageUsesFilterIndexes() {
+        assertThat(explain(BeerFilterDTO.builder().beerName("Beer 123").build(), null))
+                .contains("BEER_NAME_IDX");
+        assertThat(explain(BeerFilterDTO.builder().beerStyle("Style 7").build(), null))
+                .contains("BEER_STYLE_IDX");
+        assertThat(explain(BeerFilterDTO.builder().upc("12356").build(), null))
+                .contains("BEER_UPC_IDX");
+        assertThat(explain(BeerFilterDTO.builder().minPrice(BigDecimal.TEN).maxPrice(BigDecimal.valueOf(12)).build(),
+                null))
+                .contains("BEER_PRICE_IDX");
+    }
+
+    @Test
+    void testNextPageUsesEqualityIndexes() {
+        assertThat(explain(BeerFilterDTO.builder().beerStyle("Style 7").build(), 5000))
+                .contains("BEER_STYLE_IDX");
+        assertThat(explain(BeerFilterDTO.builder().upc("12356").build(), 5000))
+                .contains("BEER_UPC_IDX");
+    }
+
+    @Test
+    void testTableVersionIsLookedUpInIndexes() throws Exception {
+        String tableVersion = BeerRepository.class.getMethod("findTableVersion").getAnnotation(Query.class).value();
+
+        // answered from the primary key and the last_modified_date index, without reading the rows
+        assertThat(this.entityTemplate.getDatabaseClient().sql("EXPLAIN " + tableVersion)
+                .map(row -> row.get(0, String.class))
+                .one()
+                .block())
+                .contains("direct lookup");
+    }
+
+    private String explain(BeerFilterDTO filter, Integer after) {
+        // built like the entity template builds the listBeers query
+        StatementMapper statementMapper = this.entityTemplate.getDataAccessStrategy().getStatementMapper()
+                .forType(Beer.class);
+        PreparedOperation<?> select = statementMapper.getMappedObject(statementMapper.createSelect("beer")
+                .withProjection(Expressions.just("*"))
+                .withCriteria(BeerServiceImpl.toCriteria(filter, after))
+                .withSort(Sort.by("id"))
+                .limit(50));
+
+        return this.entityTemplate.getDatabaseClient().sql(new PreparedOperation<Object>() {
+                    @Override
+                    public Object getSource() {
+                        return select.getSource();
+                    }
+
+                    @Override
+                    public void bindTo(BindTarget target) {
+                        select.bindTo(target);
+                    }
+
+                    @Override
+                    public String toQuery() {
+                        return "EXPLAIN " + select.toQuery();
+                    }
+                })
+                .map(row -> row.get(0, String.class))
+                .one()
+                .block();
+    }
+}
@@ -0,0 +1,120 @@
+package guru.springframework.spring6reactive.services;
+
+import guru.springframework.spring6reactive.model.ChangeEventDTO;
+import guru.springframework.spring6reactive.model.ChangeType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChangeFeedTest {
+    static final long EPOCH = 1_700_000_000_000L;
+
+    SimpleMeterRegistry meterRegistry;
+    ChangeFeed<String> changeFeed;
+
+    @BeforeEach
+    void setUp() {
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.changeFeed = new ChangeFeed<>("test", EPOCH, 4, 2, Duration.ofSeconds(15), this.meterRegistry);
+    }
+
+    @Test
+    void testNewSubscriberOnlyGetsLaterChanges() {
+        this.changeFeed.publish(ChangeType.CREATED, 1, "one");
+
+        StepVerifier.create(this.changeFeed.subscribe(null, event -> event.getId() == 2))
+                .then(() -> {
+                    this.changeFeed.publish(ChangeType.UPDATED, 1, "one");
+                    this.changeFeed.publish(ChangeType.CREATED, 2, "two");
+                })
+                .assertNext(event -> {
+                    assertThat(event.getSequence()).isEqualTo(3);
+                    assertThat(event.getType()).isEqualTo(ChangeType.CREATED);
+                    assertThat(event.getData()).isEqualTo("two");
+                })
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void testResumesFromLastEventId() {
+        for (int id = 1; id <= 5; id++) {
+            this.changeFeed.publish(ChangeType.CREATED, id, "beer");
+        }
+
+        StepVerifier.create(this.changeFeed.subscribe(new ChangeFeed.EventId(EPOCH, 3), event -> true))
+                .assertNext(event -> assertThat(event.getSequence()).isEqualTo(4))
+                .assertNext(event -> assertThat(event.getSequence()).isEqualTo(5))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void testResetWhenLastEventIdNoLongerRetained() {
+        for (int id = 1; id <= 10; id++) {
+            this.changeFeed.publish(ChangeType.CREATED, id, "beer");
+        }
+
+        StepVerifier.create(this.changeFeed.subscribe(new ChangeFeed.EventId(EPOCH, 2), event -> true))
+                .assertNext(event -> {
+                    assertThat(event.getType()).isEqualTo(ChangeType.RESET);
+                    assertThat(event.getSequence()).isEqualTo(10);
+                })
+                .then(() -> this.changeFeed.publish(ChangeType.DELETED, 1, null))
+                .assertNext(event -> assertThat(event.getSequence()).isEqualTo(11))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void testResetWhenLastEventIdFromEarlierEpoch() {
+        // the restarted process has published past the sequence the client last saw
+        ChangeFeed<String> restarted = new ChangeFeed<>("test", EPOCH + 1, 4, 2, Duration.ofSeconds(15),
+                this.meterRegistry);
+        for (int id = 1; id <= 5; id++) {
+            restarted.publish(ChangeType.CREATED, id, "beer");
+        }
+
+        StepVerifier.create(restarted.subscribe(new ChangeFeed.EventId(EPOCH, 3), event -> true))
+                .assertNext(event -> {
+                    assertThat(event.getType()).isEqualTo(ChangeType.RESET);
+                    assertThat(event.getSequence()).isEqualTo(5);
+                })
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void testEventIdRoundTrip() {
+        this.changeFeed.publish(ChangeType.CREATED, 1, "one");
+
+        StepVerifier.create(this.changeFeed.subscribe(new ChangeFeed.EventId(EPOCH, 0), event -> true))
+                .assertNext(event -> assertThat(ChangeFeed.EventId.parse(this.changeFeed.eventId(event).toString()))
+                        .isEqualTo(new ChangeFeed.EventId(EPOCH, 1)))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void testSlowSubscriberDropsOldestChanges() {
+        StepVerifier.create(this.changeFeed.subscribe(null, event -> true), 0)
+                .then(() -> {
+                    for (int id = 1; id <= 5; id++) {
+                        this.changeFeed.publish(ChangeType.UPDATED, id, "beer");
+                    }
+                })
+                .thenRequest(2)
+                .expectNextMatches(event -> event.getSequence() == 4)
+                .expectNextMatches(event -> event.getSequence() == 5)
+                .thenCancel()
+                .verify();
+
+        assertThat(this.meterRegistry.get("change.feed.dropped").counter().count()).isEqualTo(3);
+        assertThat(this.meterRegistry.get("change.feed.subscribers").gauge().value()).isZero();
+    }
+}
@@ -0,0 +1,123 @@
+package guru.springframework.spring6reactive.services;
+
+import guru.springframework.spring6reactive.Spring6ReactiveApplication;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.Result;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.r2dbc.url=" + StockEventBufferTest.URL,
+        "app.stock-events.batch-size=1000",
+        "app.stock-events.max-pending-ids=2",
+        "app.stock-events.flush-interval=1h"
+})
+class StockEventBufferTest {
+    static final String URL = "r2dbc:h2:mem://sa@/stockdb?options=DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+
+    @Autowired
+    StockEventBuffer stockEventBuffer;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    void testBackpressureWhenFull() {
+        Integer before = quantityOnHand(1);
+
+        StepVerifier.create(this.stockEventBuffer.add(1, 4)
+                        .then(this.stockEventBuffer.add(1, 6))
+                        .then(this.stockEventBuffer.add(1001, 1))
+                        // a third beer only fits once the first two have been flushed
+                        .then(this.stockEventBuffer.add(1002, 1)))
+                .verifyComplete();
+
+        assertThat(quantityOnHand(1)).isEqualTo(before + 10);
+        assertThat(this.meterRegistry.get("stock.events.throttled").counter().count()).isEqualTo(1);
+        assertThat(this.meterRegistry.get("stock.events.coalescing.ratio").summary().max()).isEqualTo(1.5);
+
+        // neither 1001 nor 1002 exists
+        this.stockEventBuffer.flush().block();
+        assertThat(this.meterRegistry.get("stock.events.unmatched").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void testFlushesOnShutdown() {
+        // an application of its own, so closing it does not pull the context away from other tests
+        ConfigurableApplicationContext application = new SpringApplicationBuilder(Spring6ReactiveApplication.class)
+                .run("--spring.r2dbc.url=" + URL, "--server.port=0", "--app.stock-events.flush-interval=1h");
+        Integer before = quantityOnHand(2);
+
+        StockEventBuffer buffer = application.getBean(StockEventBuffer.class);
+        buffer.add(2, 7)
+                .then(buffer.add(2, -2))
+                .block();
+        assertThat(quantityOnHand(2)).isEqualTo(before);
+
+        application.close();
+
+        assertThat(quantityOnHand(2)).isEqualTo(before + 5);
+    }
+
+    @Test
+    void testShutdownWaitsForFlushInProgress() throws Exception {
+        ConfigurableApplicationContext application = new SpringApplicationBuilder(Spring6ReactiveApplication.class)
+                .run("--spring.r2dbc.url=" + URL + ";LOCK_TIMEOUT=10000", "--server.port=0",
+                        "--app.stock-events.batch-size=1", "--app.stock-events.flush-interval=1h");
+        Integer before = quantityOnHand(3);
+
+        // holds the row lock, so the flush blocks in its update until the transaction ends
+        Connection lock = Mono.from(ConnectionFactories.get(URL).create()).block();
+        Mono.from(lock.beginTransaction()).block();
+        Flux.from(lock.createStatement("UPDATE beer SET quantity_on_hand = quantity_on_hand WHERE id = 3")
+                        .execute())
+                .flatMap(Result::getRowsUpdated)
+                .blockLast();
+
+        StockEventBuffer buffer = application.getBean(StockEventBuffer.class);
+        Gauge pendingEvents = application.getBean(MeterRegistry.class).get("stock.events.pending").gauge();
+        buffer.add(3, 5).subscribeOn(Schedulers.boundedElastic()).subscribe();
+        await(() -> pendingEvents.value() == 0);
+
+        CompletableFuture<Void> close = CompletableFuture.runAsync(application::close);
+        Thread.sleep(500);
+        Mono.from(lock.rollbackTransaction()).then(Mono.from(lock.close())).block();
+        close.get(10, TimeUnit.SECONDS);
+
+        assertThat(quantityOnHand(3)).isEqualTo(before + 5);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 100 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(50);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private static Integer quantityOnHand(int beerId) {
+        // not through the application's pool, which is gone once the context is closed
+        return DatabaseClient.create(ConnectionFactories.get(URL))
+                .sql("SELECT quantity_on_hand FROM beer WHERE id = :id")
+                .bind("id", beerId)
+                .map(row -> row.get("quantity_on_hand", Integer.class))
+                .one()
+                .block();
+    }
+}